@@ -4,12 +4,37 @@ import com.github.tetrisanalyzer.move.Move;
 import com.github.tetrisanalyzer.piece.Piece;
 
 import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Represents a Tetris board. Default size is 10x20.
  *
  * Each row is represented by a 64 bit integer where each bit corresponds to a column on the board.
  * Bit 0 corresponds to the x-value 0 (left most position), bit 1 to x-value 1 etc.
+ * The bits to the right of the board (x >= width) are always set and act as a wall, and below
+ * the last row there is a completely filled floor row (y = height), so that a cell or piece
+ * outside the board is reported as occupied without any bounds checks.
+ *
+ * The board also keeps a Zobrist hash of its occupied cells that is updated incrementally
+ * when cells are set or cleared, which makes it cheap to use the board as a key in search caches.
+ * When rows are cleared, the hash is recalculated the next time it is asked for.
+ * The hash of the board mirrored left to right is kept the same way (see mirroredHash),
+ * which lets a search cache treat a board and its mirror image as the same position.
+ *
+ * The number of occupied cells is also updated incrementally.
+ *
+ * Boards with less than 64 rows also keep the cells column by column (transposed), one 64 bit
+ * word per column where bit y is set if the cell (x, y) is occupied, plus a floor bit at y = height.
+ * This gives the top of a column and the number of holes in it with a single bit operation.
+ *
+ * A board can store its rows in a circular buffer (see withCircularRows), where row y is stored
+ * at index (y + base) & mask. A cleared row is then removed by moving the rows on the shorter side
+ * of it (above or below) one step and, when the rows below were moved, adjusting 'base'.
+ * This makes a clear cost at most height / 2 row moves instead of moving all rows above it,
+ * which matters on high boards where the rows are usually cleared near the bottom.
+ *
+ * Cleared rows can be recorded in an undo log (clearRowsAndRecord) and put back (undoClearRows),
+ * which lets the search make and unmake moves on one board instead of copying it for every move.
  *
  * This is a highly optimized version that does not follow best practice in object-orientation!
  */
@@ -17,9 +42,40 @@ public class Board implements TextBoard {
     public int width;
     public int height;
     private long completeRow;
+    private long emptyRow;
     private long[] rows;
-
-    private static long EMPTY_ROW = 0;
+    private int base;
+    private int mask = -1;
+    private long hash;
+    private long mirroredHash;
+    private boolean isHashOutdated;
+    private long[] columns;
+    private int occupiedCells;
+
+    private static final int MAX_COLUMN_HEIGHT = 63;
+
+    // Undo log: the indices of the cleared rows followed by the number of cleared rows
+    // (+ OUTDATED_HASH if the hash was outdated), and the hash and mirrored hash before the rows were cleared.
+    private int[] undoRows;
+    private int undoRowsSize;
+    private long[] undoHashes;
+    private int undoHashesSize;
+
+    private static final long FULL_ROW = -1;
+    private static final int OUTDATED_HASH = 0x10000;
+
+    private static final int MAX_WIDTH = 64;
+    private static final int MAX_HEIGHT = 128;
+    private static final long[] ZOBRIST_KEYS = zobristKeys();
+
+    private static long[] zobristKeys() {
+        Random random = new Random(0x5a0b21L);
+        long[] keys = new long[MAX_WIDTH * MAX_HEIGHT];
+        for (int i=0; i<keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+        return keys;
+    }
 
     public static Board create() {
         return new Board(10, 20);
@@ -36,10 +92,11 @@ public class Board implements TextBoard {
         int width = (rows[0]).length() - 2;
         int height = rows.length - 1;
 
-        long[] boardRows = new long[height];
+        long[] boardRows = new long[height + 1];
         for (int y=0; y<height; y++) {
             boardRows[y] = rowFromText(width, rows[y]);
         }
+        boardRows[height] = FULL_ROW;
         Board result = new Board(width,  height, boardRows);
 
         return result;
@@ -49,10 +106,19 @@ public class Board implements TextBoard {
      * Creates an empty board
      */
     private Board(int width, int height) {
-        this(width, height, emptyBoard(height));
+        this(width, height, emptyBoard(width, height));
     }
 
     private Board(int width, int height, long[] rows) {
+        this(width, height, rows, 0, null);
+        hash = calculateHash(false);
+        mirroredHash = calculateHash(true);
+        for (int y=0; y<height; y++) {
+            occupiedCells += numberOfOccupiedCells(y);
+        }
+    }
+
+    private Board(int width, int height, long[] rows, long hash, long[] columns) {
         if (width < 4 || width > 64) {
             throw new IllegalArgumentException("The board width must be in the range 4 to 64");
         }
@@ -62,20 +128,147 @@ public class Board implements TextBoard {
         this.width = width;
         this.height = height;
         this.rows = rows;
+        this.hash = hash;
         completeRow = calculateCompleteRow(width);
+        emptyRow = ~completeRow;
+
+        if (columns == null && height <= MAX_COLUMN_HEIGHT) {
+            this.columns = new long[width];
+            Arrays.fill(this.columns, 1L << height);
+            calculateColumns(height - 1);
+        } else {
+            this.columns = columns;
+        }
+    }
+
+    /**
+     * Used by subclasses to create a copy of a board.
+     */
+    protected Board(Board board) {
+        this(board.width, board.height, copy(board.rows), board.hash, copy(board.columns));
+        base = board.base;
+        mask = board.mask;
+        mirroredHash = board.mirroredHash;
+        isHashOutdated = board.isHashOutdated;
+        occupiedCells = board.occupiedCells;
     }
 
     public Board copy() {
-        return new Board(width, height, copy(rows));
+        return new Board(this);
+    }
+
+    /**
+     * Returns a copy of this board that stores the rows in a circular buffer.
+     */
+    public Board withCircularRows() {
+        Board board = new Board(this);
+        long[] circularRows = new long[Integer.highestOneBit(height + 1) << 1];
+        Arrays.fill(circularRows, FULL_ROW);
+        for (int y=0; y<=height; y++) {
+            circularRows[y] = row(y);
+        }
+        board.rows = circularRows;
+        board.base = 0;
+        board.mask = circularRows.length - 1;
+        return board;
+    }
+
+    public boolean hasCircularRows() {
+        return mask != -1;
+    }
+
+    private int index(int y) {
+        return (y + base) & mask;
+    }
+
+    /**
+     * Returns row y including the wall bits (x >= width).
+     */
+    long row(int y) {
+        return rows[(y + base) & mask];
+    }
+
+    /**
+     * True if this board also keeps the rows packed, see PackedBoard.
+     */
+    public boolean isPacked() {
+        return false;
+    }
+
+    /**
+     * Called when the rows from 0 to maxY (inclusive) have been changed
+     * by something else than setBits or clearBits.
+     */
+    void rowsChanged(int maxY) {
+        if (columns != null) {
+            calculateColumns(maxY);
+        }
     }
 
-    private static long[] emptyBoard(int height) {
-        long[] rows = new long[height];
-        Arrays.fill(rows, 0);
+    /**
+     * Calculates the rows from 0 to maxY (inclusive) of the columns from the rows.
+     */
+    private void calculateColumns(int maxY) {
+        long rowsToKeep = -1L << (maxY + 1);
+        for (int x=0; x<width; x++) {
+            columns[x] &= rowsToKeep;
+        }
+        for (int y=0; y<=maxY; y++) {
+            toggleColumnBits(y, row(y) & completeRow);
+        }
+    }
+
+    private void toggleColumnBits(int y, long cells) {
+        long bit = 1L << y;
+        while (cells != 0) {
+            columns[Long.numberOfTrailingZeros(cells)] ^= bit;
+            cells &= cells - 1;
+        }
+    }
+
+    /**
+     * True if the board keeps the cells per column, which is the case if the board has less than 64 rows.
+     */
+    public boolean hasColumns() {
+        return columns != null;
+    }
+
+    /**
+     * Returns the occupied cells of a column, where bit y is set if the cell (x, y) is occupied.
+     * Bit 'height' (the floor) is always set. Can only be called if hasColumns() is true.
+     */
+    public long column(int x) {
+        return columns[x];
+    }
+
+    /**
+     * Returns the y value of the first occupied cell in a column, or 'height' if the column is empty.
+     * Can only be called if hasColumns() is true.
+     */
+    public int firstOccupiedY(int x) {
+        return Long.numberOfTrailingZeros(columns[x]);
+    }
+
+    /**
+     * Returns the number of free cells below the first occupied cell in a column.
+     * Can only be called if hasColumns() is true.
+     */
+    public int numberOfHoles(int x) {
+        long column = columns[x];
+        return height - Long.numberOfTrailingZeros(column) - (Long.bitCount(column) - 1);
+    }
+
+    private static long[] emptyBoard(int width, int height) {
+        long[] rows = new long[height + 1];
+        Arrays.fill(rows, ~calculateCompleteRow(width));
+        rows[height] = FULL_ROW;
         return rows;
     }
 
     private static long[] copy(long[] sourceRows) {
+        if (sourceRows == null) {
+            return null;
+        }
         long[] newRows = new long[sourceRows.length];
         System.arraycopy(sourceRows, 0, newRows, 0, sourceRows.length);
         return newRows;
@@ -90,12 +283,12 @@ public class Board implements TextBoard {
     }
 
     private static long rowFromText(int width, String textRow) {
-        long row = EMPTY_ROW;
+        long row = 0;
         for (int x=width; x>=1; x--) {
             row <<= 1L;
             row |= textRow.charAt(x) == '-' ? 0 : 1;
         }
-        return row;
+        return row | ~calculateCompleteRow(width);
     }
 
     /**
@@ -105,7 +298,16 @@ public class Board implements TextBoard {
      * @param pieceRowCells filled cells of a specific piece row
      */
     public void setBits(int y, long pieceRowCells) {
-        rows[y] |= pieceRowCells;
+        int index = (y + base) & mask;
+        long cells = pieceRowCells & ~rows[index];
+        hash ^= zobristKey(y, cells);
+        mirroredHash ^= zobristKey(y, mirror(cells));
+        rows[index] |= pieceRowCells;
+        occupiedCells += Long.bitCount(cells);
+
+        if (columns != null) {
+            toggleColumnBits(y, cells);
+        }
     }
 
     /**
@@ -115,7 +317,75 @@ public class Board implements TextBoard {
      * @param inversePieceRowCells filled cells of a specific piece row
      */
     public void clearBits(int y, long inversePieceRowCells) {
-        rows[y] &= inversePieceRowCells;
+        int index = (y + base) & mask;
+        long cells = rows[index] & ~inversePieceRowCells;
+        hash ^= zobristKey(y, cells);
+        mirroredHash ^= zobristKey(y, mirror(cells));
+        rows[index] &= inversePieceRowCells;
+        occupiedCells -= Long.bitCount(cells);
+
+        if (columns != null) {
+            toggleColumnBits(y, cells);
+        }
+    }
+
+    /**
+     * Returns the Zobrist hash of the occupied cells. Two boards with the same cells
+     * always have the same hash, regardless of the order the cells were set in.
+     */
+    public long hash() {
+        updateHashes();
+        return hash;
+    }
+
+    /**
+     * Returns the Zobrist hash of the board mirrored left to right, where the cell (x, y)
+     * is moved to (width - 1 - x, y). A board and its mirror image have each other's hashes.
+     */
+    public long mirroredHash() {
+        updateHashes();
+        return mirroredHash;
+    }
+
+    /**
+     * Returns the smallest of the hash and the mirrored hash, which is the same for a board and its mirror image.
+     */
+    public long canonicalHash() {
+        updateHashes();
+        return Math.min(hash, mirroredHash);
+    }
+
+    private void updateHashes() {
+        if (isHashOutdated) {
+            hash = calculateHash(false);
+            mirroredHash = calculateHash(true);
+            isHashOutdated = false;
+        }
+    }
+
+    /**
+     * Reverses the order of the cells of a row (within the width of the board).
+     */
+    private long mirror(long cells) {
+        return Long.reverse(cells) >>> (64 - width);
+    }
+
+    private static long zobristKey(int y, long cells) {
+        long key = 0;
+        while (cells != 0) {
+            key ^= ZOBRIST_KEYS[(y << 6) | Long.numberOfTrailingZeros(cells)];
+            cells &= cells - 1;
+        }
+        return key;
+    }
+
+    private long calculateHash(boolean mirrored) {
+        long hash = 0;
+        for (int y=0; y<height; y++) {
+            long cells = row(y) & completeRow;
+            hash ^= zobristKey(y, mirrored ? mirror(cells) : cells);
+        }
+        return hash;
     }
 
     /**
@@ -124,19 +394,15 @@ public class Board implements TextBoard {
      * @return true if the piece row cells are not occupied on the board
      */
     public boolean isBitsFree(int y, long pieceRowCells) {
-        try {
-            return (rows[y] & pieceRowCells) == 0;
-        } catch (IndexOutOfBoundsException e) {
-            return false;
-        }
+        return (rows[(y + base) & mask] & pieceRowCells) == 0;
     }
 
     public void setWidth(int width) {
         this.width = width;
     }
 
-    private long calculateCompleteRow(int width) {
-        long row = EMPTY_ROW;
+    private static long calculateCompleteRow(int width) {
+        long row = 0;
 
         for (int x=0; x<width; x++) {
             row <<= 1L;
@@ -146,14 +412,11 @@ public class Board implements TextBoard {
     }
 
     /**
-     * True if the specified cell is not occupied.
+     * True if the specified cell is not occupied. Cells to the right of
+     * the board (x >= width) and the floor (y == height) are occupied.
      */
     public boolean isFree(int x, int y) {
-        try {
-            return (rows[y] & (1L << x)) == 0;
-        } catch (IndexOutOfBoundsException e) {
-            return false;
-        }
+        return (rows[(y + base) & mask] & (1L << x)) == 0;
     }
 
     /**
@@ -163,13 +426,16 @@ public class Board implements TextBoard {
      *   pieceHeight: height of the piece.
      */
     public int clearRows(int pieceY, int pieceHeight) {
+        if (hasCircularRows()) {
+            return clearCircularRows(pieceY, pieceHeight);
+        }
         int clearedRows = 0;
         int y1 = pieceY + pieceHeight;
 
         // Find first row to clear
         do {
             y1--;
-            if (rows[y1] == completeRow) {
+            if (rows[y1] == FULL_ROW) {
                 clearedRows++;
             }
         } while (clearedRows == 0 && y1 > pieceY);
@@ -180,26 +446,154 @@ public class Board implements TextBoard {
 
             while (y1 >= 0) {
                 y2--;
-                while (y2 >= pieceY && rows[y2] == completeRow) {
+                while (y2 >= pieceY && rows[y2] == FULL_ROW) {
                     clearedRows++;
                     y2--;
                 }
                 if (y2 >= 0) {
                     rows[y1] = rows[y2];
                 } else {
-                    rows[y1] = Board.EMPTY_ROW;
+                    rows[y1] = emptyRow;
                 }
                 y1--;
             }
+            isHashOutdated = true;
+            occupiedCells -= clearedRows * width;
+            rowsChanged(pieceY + pieceHeight - 1);
+        }
+        return clearedRows;
+    }
+
+    private int clearCircularRows(int pieceY, int pieceHeight) {
+        int clearedRows = 0;
+
+        // Removing a row only moves the rows above it, so the rows below keep their y values.
+        for (int y=pieceY; y<pieceY + pieceHeight; y++) {
+            if (rows[index(y)] == FULL_ROW) {
+                removeRow(y);
+                clearedRows++;
+            }
+        }
+        if (clearedRows > 0) {
+            isHashOutdated = true;
+            occupiedCells -= clearedRows * width;
+            rowsChanged(pieceY + pieceHeight - 1);
         }
         return clearedRows;
     }
 
+    private void removeRow(int rowY) {
+        if (rowY < height - rowY) {
+            for (int y=rowY; y>0; y--) {
+                rows[index(y)] = rows[index(y - 1)];
+            }
+        } else {
+            for (int y=rowY; y<height; y++) {
+                rows[index(y)] = rows[index(y + 1)];
+            }
+            base = (base - 1) & mask;
+        }
+        rows[index(0)] = emptyRow;
+    }
+
+    private void insertFullRow(int rowY) {
+        if (rowY < height - rowY) {
+            for (int y=0; y<rowY; y++) {
+                rows[index(y)] = rows[index(y + 1)];
+            }
+        } else {
+            base = (base + 1) & mask;
+            for (int y=height; y>rowY; y--) {
+                rows[index(y)] = rows[index(y - 1)];
+            }
+        }
+        rows[index(rowY)] = FULL_ROW;
+    }
+
+    /**
+     * Same as clearRows, but records the cleared rows in the undo log
+     * so that they can be put back by calling undoClearRows.
+     */
+    public int clearRowsAndRecord(int pieceY, int pieceHeight) {
+        if (undoRows == null) {
+            undoRows = new int[16];
+            undoHashes = new long[4];
+        }
+        if (undoRowsSize + pieceHeight + 1 > undoRows.length) {
+            undoRows = Arrays.copyOf(undoRows, undoRows.length * 2);
+        }
+        if (undoHashesSize + 2 > undoHashes.length) {
+            undoHashes = Arrays.copyOf(undoHashes, undoHashes.length * 2);
+        }
+        int count = 0;
+        for (int y=pieceY; y<pieceY + pieceHeight; y++) {
+            if (rows[index(y)] == FULL_ROW) {
+                undoRows[undoRowsSize++] = y;
+                count++;
+            }
+        }
+        undoRows[undoRowsSize++] = isHashOutdated ? count + OUTDATED_HASH : count;
+        undoHashes[undoHashesSize++] = hash;
+        undoHashes[undoHashesSize++] = mirroredHash;
+
+        return count == 0 ? 0 : clearRows(pieceY, pieceHeight);
+    }
+
+    /**
+     * Puts back the rows that were cleared by the last call to clearRowsAndRecord.
+     */
+    public void undoClearRows() {
+        if (undoHashesSize == 0) {
+            throw new IllegalStateException("There are no cleared rows to undo");
+        }
+        int count = undoRows[--undoRowsSize];
+        mirroredHash = undoHashes[--undoHashesSize];
+        hash = undoHashes[--undoHashesSize];
+        isHashOutdated = count >= OUTDATED_HASH;
+        count &= OUTDATED_HASH - 1;
+
+        if (count == 0) {
+            return;
+        }
+        undoRowsSize -= count;
+        occupiedCells += count * width;
+        int idx = undoRowsSize;
+        int end = undoRowsSize + count;
+        int lastY = undoRows[end - 1];
+
+        if (hasCircularRows()) {
+            for (int i=end - 1; i>=idx; i--) {
+                insertFullRow(undoRows[i]);
+            }
+        } else {
+            // Row y was moved down by the number of cleared rows below it,
+            // so the rows are moved back starting from the top.
+            for (int y=0; y<=lastY; y++) {
+                if (idx < end && undoRows[idx] == y) {
+                    rows[y] = FULL_ROW;
+                    idx++;
+                } else {
+                    rows[y] = rows[y + end - idx];
+                }
+            }
+        }
+        rowsChanged(lastY);
+    }
+
     /**
      * Restores this (mutable) board from a another board.
      */
     public void restore(Board other) {
-        System.arraycopy(other.rows, 0, rows, 0, rows.length);
+        for (int y=0; y<=height; y++) {
+            rows[index(y)] = other.row(y);
+        }
+        hash = other.hash;
+        mirroredHash = other.mirroredHash;
+        isHashOutdated = other.isHashOutdated;
+        occupiedCells = other.occupiedCells;
+        undoRowsSize = 0;
+        undoHashesSize = 0;
+        rowsChanged(height - 1);
     }
 
     /**
@@ -220,7 +614,7 @@ public class Board implements TextBoard {
         String separator = "";
 
         for (int y=0; y<height; y++) {
-            result += separator + "[" + boardRowAsString(rows[y]) + "]";
+            result += separator + "[" + boardRowAsString(row(y)) + "]";
             separator = "\n" + tab + " ";
         }
         return result += "]";
@@ -228,35 +622,41 @@ public class Board implements TextBoard {
 
     public boolean isBoardEmpty() {
         for (int y=0; y<height; y++) {
-            if (rows[y] != EMPTY_ROW) {
+            if (row(y) != emptyRow) {
                 return false;
             }
         }
         return true;
     }
 
-    public int numberOfOccupiedCells(int y) {
-        int cnt = 0;
+    /**
+     * Returns the occupied cells of row y, where bit x is set if the cell (x, y) is occupied.
+     */
+    public long rowCells(int y) {
+        return rows[(y + base) & mask] & completeRow;
+    }
 
-        for (int x=0; x<width; x++) {
-            if (!isFree(x, y)) {
-                cnt++;
-            }
-        }
-        return cnt;
+    public int numberOfOccupiedCells(int y) {
+        return Long.bitCount(rows[(y + base) & mask] & completeRow);
     }
 
     public int numberOfOccupiedCells() {
-        int cnt = 0;
+        return occupiedCells;
+    }
 
-        for (int y=0; y<height; y++) {
-            for (int x=0; x<width; x++) {
-                if (!isFree(x, y)) {
-                    cnt++;
-                }
-            }
+    /**
+     * Returns the height of a column, i.e. the number of rows from the
+     * first occupied cell down to the floor, or 0 if the column is empty.
+     */
+    public int columnHeight(int x) {
+        if (columns != null) {
+            return height - firstOccupiedY(x);
         }
-        return cnt;
+        int y = 0;
+        while (isFree(x, y)) {
+            y++;
+        }
+        return height - y;
     }
 
     /**
@@ -279,7 +679,7 @@ public class Board implements TextBoard {
         board[0] = " " + piece.character() + ": " + (move == null ? "-" : move.rotation + "," + (move.x + 1));
 
         for (int y=0; y<height; y++) {
-            board[y+1] = "|" + boardRowAsString(rows[y]) + "|";
+            board[y+1] = "|" + boardRowAsString(row(y)) + "|";
         }
         board[height+1] = bottomString(width + 2);
 
@@ -301,7 +701,9 @@ public class Board implements TextBoard {
     public int hashCode() {
         int result = width;
         result = 31 * result + height;
-        result = 31 * result + (rows != null ? Arrays.hashCode(rows) : 0);
+        for (int y=0; y<height; y++) {
+            result = 31 * result + Long.hashCode(row(y));
+        }
 
         return result;
     }
@@ -309,13 +711,15 @@ public class Board implements TextBoard {
     @Override
     public boolean equals(Object that) {
         if (this == that) return true;
-        if (that == null || getClass() != that.getClass()) return false;
+        if (!(that instanceof Board)) return false;
 
         Board board = (Board) that;
 
         if (height != board.height) return false;
         if (width != board.width) return false;
-        if (!Arrays.equals(rows, board.rows)) return false;
+        for (int y=0; y<height; y++) {
+            if (row(y) != board.row(y)) return false;
+        }
 
         return true;
     }
@@ -324,7 +728,7 @@ public class Board implements TextBoard {
     public String toString() {
         String board = "";
         for (int y=0; y<height; y++) {
-            board += "|" + boardRowAsString(rows[y]) + "|" + "\n";
+            board += "|" + boardRowAsString(row(y)) + "|" + "\n";
         }
         return board + bottomTextRow(width);
     }
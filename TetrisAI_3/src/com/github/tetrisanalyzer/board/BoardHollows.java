@@ -0,0 +1,202 @@
+package com.github.tetrisanalyzer.board;
+
+/**
+ * The hollows (free cells with an occupied cell above them) of a board, calculated a row at a time
+ * with bit operations instead of cell by cell. Going from the top, the occupied cells of the rows are
+ * ORed together into a mask of the covered columns, and the holes of a row are its free cells
+ * that are covered: holes = ~row & covered.
+ *
+ * The hollow factors of the evaluators are products of a factor per row (that depends on the number
+ * of free cells in the row) over a range of rows. They are calculated in constant time from prefix
+ * products, see hollowFactorProduct.
+ *
+ * An instance can be reused for any number of boards by calling calculate, which only allocates
+ * when the board is higher than the previous boards.
+ */
+public class BoardHollows {
+    // The topmost and the lowest row with holes (height and -1 if the board has no holes).
+    public int minHoleY;
+    public int maxHoleY;
+    // The highest outline (lowest y) of the columns that have holes (height if the board has no holes).
+    public int minHoleOutline;
+
+    private int height;
+    private BoardOutline outline;
+    private long[] holes = new long[0];
+    private int[] freeCells = new int[0];
+
+    // The row factors, the product of the non zero row factors above each row and the number of zero factors above it.
+    private double[] factors;
+    private double[] products = new double[0];
+    private int[] zeroFactors = new int[0];
+
+    public BoardHollows() {
+    }
+
+    public BoardHollows(Board board, BoardOutline outline) {
+        calculate(board, outline, null);
+    }
+
+    public BoardHollows(Board board, BoardOutline outline, double[] factors) {
+        calculate(board, outline, factors);
+    }
+
+    /**
+     * Calculates the hollows of the board, and if factors is not null, also the prefix products
+     * of the row factors, factors[free cells in the row], for the rows from the top of the outline
+     * and down, see hollowFactorProduct.
+     */
+    public void calculate(Board board, BoardOutline outline, double[] factors) {
+        reset(board, outline, factors);
+
+        if (factors != null) {
+            products[outline.minY] = 1;
+            zeroFactors[outline.minY] = 0;
+        }
+        // The rows above the outline are empty.
+        for (int y=0; y<outline.minY; y++) {
+            holes[y] = 0;
+            freeCells[y] = board.width;
+        }
+        calculateRows(board, outline.minY, 0, 0);
+    }
+
+    /**
+     * Calculates the hollows of a board that only differs from the board of 'parent' in row fromY and below,
+     * e.g. when a piece with its top in row fromY has been set on it without clearing any rows.
+     * The rows above fromY are copied from 'parent', which must have been calculated with the same factors
+     * for a board of the same size, and the other rows are calculated as by calculate(board, outline, factors).
+     */
+    public void calculate(Board board, BoardOutline outline, double[] factors, BoardHollows parent, int fromY) {
+        if (fromY <= outline.minY) {
+            calculate(board, outline, factors);
+            return;
+        }
+        reset(board, outline, factors);
+
+        System.arraycopy(parent.holes, 0, holes, 0, fromY);
+        System.arraycopy(parent.freeCells, 0, freeCells, 0, fromY);
+        if (factors != null) {
+            System.arraycopy(parent.products, 0, products, 0, fromY + 1);
+            System.arraycopy(parent.zeroFactors, 0, zeroFactors, 0, fromY + 1);
+        }
+        long covered = 0;
+        long holeColumns = 0;
+
+        for (int y=outline.minY; y<fromY; y++) {
+            covered |= board.rowCells(y);
+
+            if (holes[y] != 0) {
+                holeColumns |= holes[y];
+                if (minHoleY == height) {
+                    minHoleY = y;
+                }
+                maxHoleY = y;
+            }
+        }
+        calculateRows(board, fromY, covered, holeColumns);
+    }
+
+    private void reset(Board board, BoardOutline outline, double[] factors) {
+        this.outline = outline;
+        this.factors = factors;
+        height = board.height;
+        minHoleY = height;
+        maxHoleY = -1;
+
+        if (holes.length < height) {
+            holes = new long[height];
+            freeCells = new int[height];
+        }
+        if (factors != null && products.length <= height) {
+            products = new double[height + 1];
+            zeroFactors = new int[height + 1];
+        }
+    }
+
+    /**
+     * Calculates the rows from fromY and down, where 'covered' are the occupied columns
+     * and 'holeColumns' the columns with holes in the rows above fromY.
+     */
+    private void calculateRows(Board board, int fromY, long covered, long holeColumns) {
+        for (int y=fromY; y<height; y++) {
+            long row = board.rowCells(y);
+            long rowHoles = ~row & covered;
+            int free = board.width - Long.bitCount(row);
+            holes[y] = rowHoles;
+            freeCells[y] = free;
+            covered |= row;
+
+            if (rowHoles != 0) {
+                holeColumns |= rowHoles;
+                if (minHoleY == height) {
+                    minHoleY = y;
+                }
+                maxHoleY = y;
+            }
+            if (factors != null) {
+                double factor = factors[free];
+                products[y + 1] = factor == 0 ? products[y] : products[y] * factor;
+                zeroFactors[y + 1] = factor == 0 ? zeroFactors[y] + 1 : zeroFactors[y];
+            }
+        }
+        minHoleOutline = minOutline(holeColumns);
+    }
+
+    public boolean hasHoles(int y) {
+        return holes[y] != 0;
+    }
+
+    /**
+     * Returns the holes of row y, where bit x is set if the cell (x, y) is a hole.
+     */
+    public long holes(int y) {
+        return holes[y];
+    }
+
+    public int freeCells(int y) {
+        return freeCells[y];
+    }
+
+    /**
+     * Returns the highest outline (lowest y) of the columns that have a hole in row y,
+     * or the height of the board if the row has no holes.
+     */
+    public int minOutlineForHole(int y) {
+        return minOutline(holes[y]);
+    }
+
+    private int minOutline(long columns) {
+        int minOutline = height;
+        while (columns != 0) {
+            int x = Long.numberOfTrailingZeros(columns);
+            columns &= columns - 1;
+            if (outline.get(x) < minOutline) {
+                minOutline = outline.get(x);
+            }
+        }
+        return minOutline;
+    }
+
+    /**
+     * Returns the product of the row factors of the rows from fromY to toY (inclusive), where fromY
+     * is not above the top of the outline. Can only be called if the factors were given.
+     */
+    public double hollowFactorProduct(int fromY, int toY) {
+        if (zeroFactors[toY + 1] != zeroFactors[fromY]) {
+            return 0;
+        }
+        double product = products[toY + 1];
+
+        if (product >= Double.MIN_NORMAL && product <= Double.MAX_VALUE &&
+                products[fromY] >= Double.MIN_NORMAL && products[fromY] <= Double.MAX_VALUE) {
+            return product / products[fromY];
+        }
+        // The prefix products have lost their precision (e.g. on high and wide boards).
+        product = 1;
+        for (int y=fromY; y<=toY; y++) {
+            product *= factors[freeCells[y]];
+        }
+        return product;
+    }
+}
@@ -6,25 +6,49 @@ public class BoardOutline {
     public int minY;
     public int maxY;
     public double freeRows;
-    private int[] outline;
+    private int wall;
+    private int freeCells;
+    private int[] outline = new int[0];
+
+    public BoardOutline() {
+    }
 
     public BoardOutline(Board board) {
         this(board, false);
     }
 
     public BoardOutline(Board board, boolean withLeftWall) {
-        int wall = withLeftWall ? 1 : 0;
-        outline = new int[board.width + 1 + wall];
+        calculate(board, withLeftWall);
+    }
+
+    public BoardOutline(int minY, int maxY, int... outline) {
+        this.minY = minY;
+        this.maxY = maxY;
+        this.outline = outline;
+    }
+
+    /**
+     * Calculates the outline of the board, reusing the outline array if the board has the same width as before.
+     */
+    public void calculate(Board board, boolean withLeftWall) {
+        wall = withLeftWall ? 1 : 0;
+        if (outline.length != board.width + 1 + wall) {
+            outline = new int[board.width + 1 + wall];
+        }
         minY = Integer.MAX_VALUE;
         maxY = Integer.MIN_VALUE;
 
-        int freeCells = 0;
+        freeCells = 0;
         for (int x = 0; x < board.width; x++) {
             int y = 0;
-            while (board.isFree(x, y)) {
-                freeCells++;
-                y++;
+            if (board.hasColumns()) {
+                y = board.firstOccupiedY(x);
+            } else {
+                while (board.isFree(x, y)) {
+                    y++;
+                }
             }
+            freeCells += y;
             outline[x + wall] = y;
 
             if (y < minY) {
@@ -42,10 +66,55 @@ public class BoardOutline {
         freeRows = ((double)freeCells) / board.width;
     }
 
-    public BoardOutline(int minY, int maxY, int... outline) {
-        this.minY = minY;
-        this.maxY = maxY;
-        this.outline = outline;
+    /**
+     * Copies another outline, reusing the outline array if it has the same size as before.
+     */
+    public void copy(BoardOutline that) {
+        if (outline.length != that.outline.length) {
+            outline = new int[that.outline.length];
+        }
+        System.arraycopy(that.outline, 0, outline, 0, outline.length);
+        minY = that.minY;
+        maxY = that.maxY;
+        freeRows = that.freeRows;
+        wall = that.wall;
+        freeCells = that.freeCells;
+    }
+
+    /**
+     * Updates the outline after the cells of row y have been set on the board, where bit x of cells
+     * is set if the cell (x, y) was set, without clearing any rows. Only the columns of the cells are examined,
+     * except when the lowest outline was raised, which gives the same outline as calculating it from the board.
+     */
+    public void addCells(int y, long cells) {
+        if (cells == 0) {
+            return;
+        }
+        int width = outline.length - 1 - wall;
+        boolean maxYRaised = false;
+
+        while (cells != 0) {
+            int x = Long.numberOfTrailingZeros(cells) + wall;
+            cells &= cells - 1;
+
+            if (y < outline[x]) {
+                maxYRaised |= outline[x] == maxY;
+                freeCells -= outline[x] - y;
+                outline[x] = y;
+            }
+        }
+        if (y < minY) {
+            minY = y;
+        }
+        if (maxYRaised) {
+            maxY = Integer.MIN_VALUE;
+            for (int x = wall; x < width + wall; x++) {
+                if (outline[x] > maxY) {
+                    maxY = outline[x];
+                }
+            }
+        }
+        freeRows = ((double)freeCells) / width;
     }
 
     public int size() {
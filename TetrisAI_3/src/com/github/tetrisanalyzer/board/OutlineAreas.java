@@ -0,0 +1,139 @@
+package com.github.tetrisanalyzer.board;
+
+/**
+ * The closed areas of a board outline, as used by the outline structure of the evaluators.
+ *
+ * For each column x (from 1 to width, where x = width is the right wall of the board) the area to the
+ * left of it is followed from its start row and down, and every time the area gets narrower, the part
+ * above it is added as an area with its width and height. The areas are calculated with a stack of
+ * the columns that can be the left wall of an area (the columns that are higher than all columns
+ * between them and x), which gives each column at most one narrowing and makes the calculation
+ * proportional to the board width instead of width * width * height.
+ *
+ * The areas are stored in the same order as the evaluators used to find them, which is
+ * per column x from left to right and then from the top and down.
+ *
+ * An instance can be reused for any number of outlines by calling calculate, which only allocates
+ * when the outline is wider than the previous outlines.
+ */
+public class OutlineAreas {
+    private int size;
+    private int[] widths = new int[0];
+    private int[] heights = new int[0];
+    private int[] ys = new int[0];
+    private int[] startYs = new int[0];
+    private boolean[] wallsSameHeight = new boolean[0];
+    private boolean[] floors = new boolean[0];
+    private int[] stack = new int[0];
+
+    public OutlineAreas() {
+    }
+
+    public OutlineAreas(BoardOutline outline) {
+        calculate(outline);
+    }
+
+    public void calculate(BoardOutline outline) {
+        int width = outline.size() - 1;
+        size = 0;
+
+        if (stack.length < width) {
+            int capacity = width * 2;
+            widths = new int[capacity];
+            heights = new int[capacity];
+            ys = new int[capacity];
+            startYs = new int[capacity];
+            wallsSameHeight = new boolean[capacity];
+            floors = new boolean[capacity];
+            stack = new int[width];
+        }
+
+        // The columns from the left that have the same height as the first column.
+        int floorWidth = 1;
+        while (floorWidth < width && outline.get(floorWidth) == outline.get(0)) {
+            floorWidth++;
+        }
+        // Columns with increasing y from bottom to top, where each column is higher than
+        // all columns between it and the next column on the stack.
+        int stackSize = 0;
+
+        for (int x=1; x<=width; x++) {
+            int column = x - 1;
+            while (stackSize > 0 && outline.get(stack[stackSize - 1]) >= outline.get(column)) {
+                stackSize--;
+            }
+            stack[stackSize++] = column;
+
+            int rightWallY = outline.get(x);
+            int startY = (x == width) ? outline.minY : rightWallY;
+
+            // The columns that are lower than the start row, where the area gets narrower.
+            int first = stackSize;
+            while (first > 0 && outline.get(stack[first - 1]) > startY) {
+                first--;
+            }
+            int leftWall = first > 0 ? stack[first - 1] : -1;
+            int areaY = startY;
+            // Only the topmost area can have a left wall of the same height as the right wall.
+            boolean hasWallsSameHeight = leftWall >= 0 && outline.get(leftWall) == rightWallY;
+
+            for (int i=first; i<stackSize; i++) {
+                int y = outline.get(stack[i]);
+                add(x - 1 - leftWall, y - areaY, areaY, startY, hasWallsSameHeight, x <= floorWidth);
+                leftWall = stack[i];
+                areaY = y;
+                hasWallsSameHeight = false;
+            }
+        }
+    }
+
+    private void add(int width, int height, int y, int startY, boolean hasWallsSameHeight, boolean isFloor) {
+        widths[size] = width;
+        heights[size] = height;
+        ys[size] = y;
+        startYs[size] = startY;
+        wallsSameHeight[size] = hasWallsSameHeight;
+        floors[size] = isFloor;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int width(int area) {
+        return widths[area];
+    }
+
+    public int height(int area) {
+        return heights[area];
+    }
+
+    /**
+     * Returns the top row of the area.
+     */
+    public int y(int area) {
+        return ys[area];
+    }
+
+    /**
+     * Returns the row where the areas to the left of the same column start.
+     */
+    public int startY(int area) {
+        return startYs[area];
+    }
+
+    /**
+     * True if the left and the right wall of the area have the same height.
+     */
+    public boolean hasWallsSameHeight(int area) {
+        return wallsSameHeight[area];
+    }
+
+    /**
+     * True if all columns to the left of the right wall of the area have the same height.
+     */
+    public boolean isFloor(int area) {
+        return floors[area];
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.tetrisanalyzer.board;
+
+import java.util.Arrays;
+
+/**
+ * A board with a width of at most 16 that, in addition to the rows, packs four rows into
+ * each 64 bit word, where bit 16 * (y % 4) + x corresponds to the cell (x, y).
+ *
+ * The packed words make it possible to check if a piece position is free with one or two
+ * 64 bit operations (see PieceMove.isFree) instead of one array access per piece row.
+ * The rows are still used by everything else, e.g. the board evaluators.
+ * As for the rows, the bits to the right of the board and the rows below the board are set.
+ */
+public class PackedBoard extends Board {
+    public static final int MAX_WIDTH = 16;
+
+    private static final long LANE = 0xFFFF;
+
+    private final long[] packed;
+
+    public static PackedBoard create(Board board) {
+        return new PackedBoard(board);
+    }
+
+    private PackedBoard(Board board) {
+        super(board);
+
+        if (width > MAX_WIDTH) {
+            throw new IllegalArgumentException("A packed board can only have a width of up to " + MAX_WIDTH + ", but was: " + width);
+        }
+        packed = new long[(height >> 2) + 2];
+        Arrays.fill(packed, -1);
+        rowsChanged(height - 1);
+    }
+
+    private PackedBoard(PackedBoard board) {
+        super(board);
+        packed = Arrays.copyOf(board.packed, board.packed.length);
+    }
+
+    @Override
+    public PackedBoard copy() {
+        return new PackedBoard(this);
+    }
+
+    @Override
+    public boolean isPacked() {
+        return true;
+    }
+
+    /**
+     * True if none of the cells in 'mask0' (word 'index') and 'mask1' (word 'index' + 1) are occupied.
+     */
+    public boolean isFree(int index, long mask0, long mask1) {
+        return ((packed[index] & mask0) | (packed[index + 1] & mask1)) == 0;
+    }
+
+    @Override
+    public void setBits(int y, long pieceRowCells) {
+        super.setBits(y, pieceRowCells);
+        packed[y >> 2] |= (pieceRowCells & LANE) << shift(y);
+    }
+
+    @Override
+    public void clearBits(int y, long inversePieceRowCells) {
+        super.clearBits(y, inversePieceRowCells);
+        packed[y >> 2] &= ~((~inversePieceRowCells & LANE) << shift(y));
+    }
+
+    @Override
+    void rowsChanged(int maxY) {
+        super.rowsChanged(maxY);
+
+        for (int y=0; y<=maxY; y++) {
+            int shift = shift(y);
+            packed[y >> 2] = (packed[y >> 2] & ~(LANE << shift)) | ((row(y) & LANE) << shift);
+        }
+    }
+
+    private static int shift(int y) {
+        return (y & 3) << 4;
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.tetrisanalyzer.board;
+
+/**
+ * Tables with one value per row pattern (the occupied cells of a row, as returned by Board.rowCells)
+ * for narrow boards, where a row has at most 2^MAX_WIDTH patterns. This lets the evaluators
+ * look up per-row values with the row cells as index instead of examining the row cell by cell.
+ */
+public class RowPatterns {
+    public static final int MAX_WIDTH = 12;
+
+    /**
+     * Returns factors[number of free cells] per row pattern of a board with the given width,
+     * or NaN for the patterns with more free cells than there are factors
+     * (which, as for the cell by cell calculation, is the case for an empty row below the top of the outline).
+     */
+    public static double[] freeCellFactors(int width, double[] factors) {
+        if (width > MAX_WIDTH) {
+            throw new IllegalArgumentException("The width can be at most " + MAX_WIDTH + ", but was: " + width);
+        }
+        double[] rowFactors = new double[1 << width];
+
+        for (int cells=0; cells<rowFactors.length; cells++) {
+            int freeCells = width - Integer.bitCount(cells);
+            rowFactors[cells] = freeCells < factors.length ? factors[freeCells] : Double.NaN;
+        }
+        return rowFactors;
+    }
+
+    /**
+     * Same as freeCellFactors, but returns null if the board is wider than MAX_WIDTH.
+     */
+    public static double[] freeCellFactorsIfNarrow(int width, double[] factors) {
+        return width <= MAX_WIDTH ? freeCellFactors(width, factors) : null;
+    }
+
+    /**
+     * Returns the hollow equity of the Tengstrand evaluators, see hollowEquity below,
+     * without a first row factor or height factors.
+     */
+    public static double hollowEquity(Board board, BoardOutline outline, int boardHeight,
+                                      double[] rowFactors, double[] hollowFactorForRow) {
+        return hollowEquity(board, outline, boardHeight, rowFactors, 1, null, hollowFactorForRow);
+    }
+
+    /**
+     * Returns the hollow equity of the Tengstrand evaluators (1.2 to 1.4) for a board that is at most
+     * MAX_WIDTH wide, where 'rowFactors' is the hollow factor per row pattern (see freeCellFactors).
+     * The holes of a row are the free cells that are covered by the rows above, and each row with holes adds
+     * (1 - the product of the row factors from the highest outline over its holes down to the row) * width,
+     * where the factor of the highest row is also multiplied by 'firstRowFactor', and the equity of
+     * the row by heightFactors[y] (if not null). The products are formed in the same order as by
+     * the cell by cell calculation of the evaluators, which gives exactly the same equity.
+     *
+     * 'hollowFactorForRow' is a buffer with at least 'boardHeight' elements.
+     */
+    public static double hollowEquity(Board board, BoardOutline outline, int boardHeight, double[] rowFactors,
+                                      double firstRowFactor, double[] heightFactors, double[] hollowFactorForRow) {
+        double equity = 0;
+        long covered = 0;
+
+        for (int y=outline.minY; y<boardHeight; y++) {
+            long cells = board.rowCells(y);
+            long holes = ~cells & covered;
+            covered |= cells;
+            hollowFactorForRow[y] = rowFactors[(int)cells];
+
+            if (holes != 0) {
+                int minOutlineForHole = boardHeight;
+                for (; holes != 0; holes &= holes - 1) {
+                    minOutlineForHole = Math.min(minOutlineForHole, outline.get(Long.numberOfTrailingZeros(holes)));
+                }
+                double hollowFactor = hollowFactorForRow[minOutlineForHole] * firstRowFactor;
+
+                for (int row=minOutlineForHole + 1; row<=y; row++) {
+                    hollowFactor *= hollowFactorForRow[row];
+                }
+                double rowEquity = (1 - hollowFactor) * board.width;
+                equity += heightFactors == null ? rowEquity : rowEquity * heightFactors[y];
+            }
+        }
+        return equity;
+    }
+}
@@ -9,4 +9,12 @@ public interface BoardEvaluator {
     double maxEquity();
     double evaluate(Board board, AllValidPieceMoves allValidPieceMoves);
     Map<String,String> parameters();
+
+    /**
+     * True if a board and its mirror image (mirrored left to right) always get the same equity,
+     * apart from the adjustment for occupied start moves, which depends on the rules.
+     */
+    default boolean isMirrorSymmetric() {
+        return false;
+    }
 }
@@ -0,0 +1,199 @@
+package com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A board evaluator that remembers the equities of the boards that the wrapped evaluator has evaluated,
+ * so that a board that comes back (e.g. the same leaf in the search of consecutive moves of a game,
+ * or once per piece when the search averages over the unknown next piece) is looked up instead.
+ *
+ * The equities are stored in a fixed size, open addressed table of primitive arrays with the Zobrist hash
+ * of the board as key, which means that the evaluator must only be used for one board size and one
+ * AllValidPieceMoves (as in a game). A key is stored in one of the PROBES slots that follow its home slot,
+ * and when they are all taken, the eviction policy selects the slot to replace.
+ *
+ * If the cache is created with mirror symmetry, a board and its mirror image share the entry
+ * (see Board.canonicalHash), which requires that both the wrapped evaluator and the start moves of the rules
+ * are left/right symmetric (see BoardEvaluator.isMirrorSymmetric and AllValidPieceMoves.isMirrorSymmetric).
+ *
+ * If the wrapped evaluator is an IncrementalBoardEvaluator, create the cache with the create method,
+ * which returns an IncrementalCachingBoardEvaluator, so that the search still evaluates the leaves incrementally.
+ *
+ * Like the transposition table, it can be shared by the threads of a parallel search
+ * without locking. Each slot stores the key XOR:ed with the bits of the equity, so if two threads
+ * write the same slot at the same time and the key and equity end up from different writes,
+ * the slot is treated as a miss.
+ */
+public class CachingBoardEvaluator implements BoardEvaluator {
+    private static final int PROBES = 4;
+    private static final long EMPTY = 0;
+
+    public enum Eviction {
+        // Replace the home slot of the key.
+        REPLACE("replace"),
+        // Replace the first slot that has not been hit since it was stored or passed over (clock algorithm).
+        SECOND_CHANCE("second chance");
+
+        public final String name;
+
+        Eviction(String name) {
+            this.name = name;
+        }
+
+        public static Eviction fromName(String name) {
+            for (Eviction eviction : values()) {
+                if (eviction.name.equals(name)) {
+                    return eviction;
+                }
+            }
+            throw new IllegalArgumentException("Unknown evaluation cache eviction '" + name + "', expected: 'replace' or 'second chance'");
+        }
+    }
+
+    private final BoardEvaluator evaluator;
+    private final Eviction eviction;
+    private final boolean mirrorSymmetry;
+    private final int mask;
+    private final long[] keys;
+    private final double[] equities;
+    private final boolean[] referenced;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingBoardEvaluator(BoardEvaluator evaluator, int size, Eviction eviction) {
+        this(evaluator, size, eviction, false);
+    }
+
+    public CachingBoardEvaluator(BoardEvaluator evaluator, int size, Eviction eviction, boolean mirrorSymmetry) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The size of the evaluation cache must be positive, but was: " + size);
+        }
+        this.evaluator = evaluator;
+        this.eviction = eviction;
+        this.mirrorSymmetry = mirrorSymmetry;
+        int capacity = capacity(size);
+        mask = capacity - 1;
+        keys = new long[capacity];
+        equities = new double[capacity];
+        referenced = new boolean[capacity];
+    }
+
+    /**
+     * Returns a cache that is an IncrementalBoardEvaluator if the wrapped evaluator is one.
+     */
+    public static CachingBoardEvaluator create(BoardEvaluator evaluator, int size, Eviction eviction, boolean mirrorSymmetry) {
+        if (evaluator instanceof IncrementalBoardEvaluator) {
+            return new IncrementalCachingBoardEvaluator((IncrementalBoardEvaluator)evaluator, size, eviction, mirrorSymmetry);
+        }
+        return new CachingBoardEvaluator(evaluator, size, eviction, mirrorSymmetry);
+    }
+
+    private static int capacity(int size) {
+        int capacity = PROBES;
+        while (capacity < size && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    @Override
+    public double maxEquity() {
+        return evaluator.maxEquity();
+    }
+
+    @Override
+    public double evaluate(Board board, AllValidPieceMoves allValidPieceMoves) {
+        long key = key(board);
+        double equity = get(key);
+
+        if (Double.isNaN(equity)) {
+            equity = evaluator.evaluate(board, allValidPieceMoves);
+            put(key, equity);
+        }
+        return equity;
+    }
+
+    long key(Board board) {
+        long key = mirrorSymmetry ? board.canonicalHash() : board.hash();
+        return key == EMPTY ? 1 : key;
+    }
+
+    /**
+     * Returns the stored equity of the key, or NaN if it is not stored.
+     */
+    double get(long key) {
+        int home = (int)key & mask;
+
+        for (int i=0; i<PROBES; i++) {
+            int index = (home + i) & mask;
+            double equity = equities[index];
+            if (storedKey(index, equity) == key) {
+                referenced[index] = true;
+                hits.increment();
+                return equity;
+            }
+        }
+        misses.increment();
+        return Double.NaN;
+    }
+
+    void put(long key, double equity) {
+        store(victim((int)key & mask), key, equity);
+    }
+
+    private long storedKey(int index, double equity) {
+        return keys[index] ^ Double.doubleToRawLongBits(equity);
+    }
+
+    private int victim(int home) {
+        for (int i=0; i<PROBES; i++) {
+            int index = (home + i) & mask;
+            if (storedKey(index, equities[index]) == EMPTY) {
+                return index;
+            }
+        }
+        if (eviction == Eviction.SECOND_CHANCE) {
+            for (int i=0; i<PROBES; i++) {
+                int index = (home + i) & mask;
+                if (!referenced[index]) {
+                    return index;
+                }
+                referenced[index] = false;
+            }
+        }
+        return home;
+    }
+
+    private void store(int index, long key, double equity) {
+        keys[index] = key ^ Double.doubleToRawLongBits(equity);
+        equities[index] = equity;
+        referenced[index] = false;
+    }
+
+    @Override
+    public boolean isMirrorSymmetric() {
+        return evaluator.isMirrorSymmetric();
+    }
+
+    @Override
+    public Map<String, String> parameters() {
+        return evaluator.parameters();
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+}
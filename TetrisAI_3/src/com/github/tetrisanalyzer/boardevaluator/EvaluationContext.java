@@ -0,0 +1,57 @@
+package com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.BoardHollows;
+import com.github.tetrisanalyzer.board.BoardOutline;
+import com.github.tetrisanalyzer.board.OutlineAreas;
+
+/**
+ * The scratch buffers that the board evaluators use while evaluating a board, one instance per thread,
+ * so that the evaluation doesn't allocate anything (the evaluators are shared by the search threads).
+ *
+ * The buffers are only valid until the next call to the same method on the same thread,
+ * which means that an evaluator can't keep them between calls to evaluate.
+ */
+public class EvaluationContext {
+    private static final ThreadLocal<EvaluationContext> contexts = ThreadLocal.withInitial(EvaluationContext::new);
+
+    private final BoardOutline outline = new BoardOutline();
+    private final BoardHollows hollows = new BoardHollows();
+    private final OutlineAreas areas = new OutlineAreas();
+    private double[] rowFactors = new double[0];
+
+    private EvaluationContext() {
+    }
+
+    /**
+     * Returns the context of the current thread.
+     */
+    public static EvaluationContext get() {
+        return contexts.get();
+    }
+
+    public BoardOutline outline(Board board) {
+        outline.calculate(board, false);
+        return outline;
+    }
+
+    public BoardHollows hollows(Board board, BoardOutline outline, double[] factors) {
+        hollows.calculate(board, outline, factors);
+        return hollows;
+    }
+
+    public OutlineAreas areas(BoardOutline outline) {
+        areas.calculate(outline);
+        return areas;
+    }
+
+    /**
+     * Returns an array with at least 'size' elements, where the values are left from the previous call.
+     */
+    public double[] rowFactors(int size) {
+        if (rowFactors.length < size) {
+            rowFactors = new double[size];
+        }
+        return rowFactors;
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.BoardHollows;
+import com.github.tetrisanalyzer.board.BoardOutline;
+
+/**
+ * The features of a board that an IncrementalBoardEvaluator keeps between the evaluation
+ * of a board and the evaluations of the boards after the next move.
+ * An instance can be reused for any number of boards, but it is only valid
+ * for the evaluator (and board size) that filled it in.
+ */
+public class EvaluationState {
+    final BoardOutline outline = new BoardOutline();
+    final BoardHollows hollows = new BoardHollows();
+
+    // The hollow equity of the board and, for the rows with holes, the hollow equity of the rows above them.
+    double hollowEquity;
+    double[] hollowEquities = new double[0];
+
+    double[] hollowEquities(int height) {
+        if (hollowEquities.length < height) {
+            hollowEquities = new double[height];
+        }
+        return hollowEquities;
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.PieceMove;
+
+/**
+ * A board evaluator that can evaluate a board from the features of the board before the last move
+ * (the parent board), recalculating only the rows and columns that the move changed.
+ * The features of a board are kept in an EvaluationState, which is filled in by the evaluation
+ * so that it can be used as the parent state when evaluating the boards after the next move.
+ *
+ * PositionEvaluator evaluates the leaves of the search this way on boards without column masks
+ * (64 rows or more), where it is faster than evaluating them from scratch.
+ */
+public interface IncrementalBoardEvaluator extends BoardEvaluator {
+
+    /**
+     * Evaluates the board from scratch, as evaluate(board, allValidPieceMoves),
+     * and stores the features of the board in 'state'.
+     */
+    double evaluate(Board board, AllValidPieceMoves allValidPieceMoves, EvaluationState state);
+
+    /**
+     * Evaluates the board after pieceMove has been made on the board of 'parent', where 'clearedRows'
+     * is the number of rows that the move cleared, and stores the features of the board in 'state'
+     * (which must not be the same instance as 'parent'). Gives the same equity as evaluate(board, allValidPieceMoves).
+     * IncrementalCachingBoardEvaluator leaves 'state' unchanged when the equity comes from the cache.
+     */
+    double evaluate(Board board, AllValidPieceMoves allValidPieceMoves, EvaluationState parent,
+                    PieceMove pieceMove, int clearedRows, EvaluationState state);
+}
@@ -0,0 +1,40 @@
+package com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.PieceMove;
+
+/**
+ * A CachingBoardEvaluator for an IncrementalBoardEvaluator (created by CachingBoardEvaluator.create).
+ *
+ * A board that is evaluated incrementally is first looked up in the cache, and only evaluated
+ * (incrementally) if it isn't there. On a hit, 'state' is not filled in, which is fine for the leaves
+ * of the search, whose states are never used as parent states. The parent states are always
+ * calculated by the wrapped evaluator.
+ */
+public class IncrementalCachingBoardEvaluator extends CachingBoardEvaluator implements IncrementalBoardEvaluator {
+    private final IncrementalBoardEvaluator evaluator;
+
+    public IncrementalCachingBoardEvaluator(IncrementalBoardEvaluator evaluator, int size, Eviction eviction, boolean mirrorSymmetry) {
+        super(evaluator, size, eviction, mirrorSymmetry);
+        this.evaluator = evaluator;
+    }
+
+    @Override
+    public double evaluate(Board board, AllValidPieceMoves allValidPieceMoves, EvaluationState state) {
+        return evaluator.evaluate(board, allValidPieceMoves, state);
+    }
+
+    @Override
+    public double evaluate(Board board, AllValidPieceMoves allValidPieceMoves, EvaluationState parent,
+                           PieceMove pieceMove, int clearedRows, EvaluationState state) {
+        long key = key(board);
+        double equity = get(key);
+
+        if (Double.isNaN(equity)) {
+            equity = evaluator.evaluate(board, allValidPieceMoves, parent, pieceMove, clearedRows, state);
+            put(key, equity);
+        }
+        return equity;
+    }
+}
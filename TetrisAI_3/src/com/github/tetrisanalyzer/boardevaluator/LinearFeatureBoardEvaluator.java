@@ -0,0 +1,182 @@
+package com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.settings.GameSettings;
+import com.github.tetrisanalyzer.settings.SettingsReader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A fast board evaluator, meant as a speed baseline and for pruning, that calculates the equity
+ * as a weighted sum of the classic linear features (lower is better):
+ *
+ *   - aggregate height: the sum of the column heights
+ *   - holes: the free cells with an occupied cell above them
+ *   - bumpiness: the sum of the height differences between neighbouring columns
+ *   - row transitions: the changes between free and occupied cells along the rows (the walls are occupied)
+ *   - column transitions: the changes between free and occupied cells down the columns (the floor is occupied)
+ *   - wells: the free cells above the top of their column that have occupied cells (or walls) on both sides
+ *
+ * All features are calculated a row at a time with bit operations on the rows of the board, going from
+ * the top of the stack and down with a mask of the covered columns (the columns with an occupied cell
+ * in the current row or above). The difference in height between two neighbouring columns is, for example,
+ * the number of rows where only one of them is covered.
+ */
+public class LinearFeatureBoardEvaluator implements BoardEvaluator {
+    public int boardWidth;
+    public int boardHeight;
+    public double maxEquity;
+    public double maxEquityFactor = 1.21;
+
+    public double aggregateHeightFactor = 0.5;
+    public double holeFactor = 7.9;
+    public double bumpinessFactor = 0.2;
+    public double rowTransitionFactor = 3.2;
+    public double columnTransitionFactor = 9.35;
+    public double wellFactor = 3.4;
+
+    public String id;
+    public String description;
+    public String author;
+    public String url;
+    public String clazz;
+
+    private long widthMask;
+    private long innerMask;
+    private long rightWall;
+
+    public LinearFeatureBoardEvaluator(int boardWidth, int boardHeight, GameSettings rules) {
+        init(boardWidth, boardHeight);
+    }
+
+    public LinearFeatureBoardEvaluator(int boardWidth, int boardHeight, GameSettings rules, Map settings) {
+        SettingsReader reader = new SettingsReader(settings, "board evaluators");
+
+        id = reader.readString("id");
+        description = reader.readString("description");
+        author = reader.readString("author");
+        url = reader.readString("url");
+        clazz = reader.readString("class");
+
+        maxEquityFactor = reader.readDouble("maxEquityFactor");
+        aggregateHeightFactor = reader.readDouble("aggregateHeightFactor");
+        holeFactor = reader.readDouble("holeFactor");
+        bumpinessFactor = reader.readDouble("bumpinessFactor");
+        rowTransitionFactor = reader.readDouble("rowTransitionFactor");
+        columnTransitionFactor = reader.readDouble("columnTransitionFactor");
+        wellFactor = reader.readDouble("wellFactor");
+
+        init(boardWidth, boardHeight);
+    }
+
+    private void init(int boardWidth, int boardHeight) {
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+
+        widthMask = boardWidth == 64 ? -1 : (1L << boardWidth) - 1;
+        innerMask = (1L << (boardWidth - 1)) - 1;
+        rightWall = 1L << (boardWidth - 1);
+
+        // The highest value of each feature: at most one per cell, except for the transitions
+        // (boardWidth + 1 per row and boardHeight + 1 per column) and bumpiness (boardWidth - 1 per row).
+        int cells = boardWidth * boardHeight;
+        maxEquity = (aggregateHeightFactor * cells +
+                holeFactor * cells +
+                bumpinessFactor * (boardWidth - 1) * boardHeight +
+                rowTransitionFactor * (boardWidth + 1) * boardHeight +
+                columnTransitionFactor * boardWidth * (boardHeight + 1) +
+                wellFactor * cells) * maxEquityFactor;
+    }
+
+    @Override
+    public double maxEquity() {
+        return maxEquity;
+    }
+
+    @Override
+    public double evaluate(Board board, AllValidPieceMoves allValidPieceMoves) {
+        return allValidPieceMoves.adjustEquityIfOccupiedStartPiece(evaluate(board), maxEquity, board);
+    }
+
+    /**
+     * All features treat the columns the same way and both walls as occupied.
+     */
+    @Override
+    public boolean isMirrorSymmetric() {
+        return true;
+    }
+
+    @Override
+    public Map<String, String> parameters() {
+        Map<String,String> parameters = new LinkedHashMap<>();
+
+        parameters.put("id", id);
+        parameters.put("description", description);
+        parameters.put("author", author);
+        parameters.put("url", url);
+        parameters.put("class", clazz);
+
+        parameters.put("maxEquityFactor", Double.toString(maxEquityFactor));
+        parameters.put("aggregateHeightFactor", Double.toString(aggregateHeightFactor));
+        parameters.put("holeFactor", Double.toString(holeFactor));
+        parameters.put("bumpinessFactor", Double.toString(bumpinessFactor));
+        parameters.put("rowTransitionFactor", Double.toString(rowTransitionFactor));
+        parameters.put("columnTransitionFactor", Double.toString(columnTransitionFactor));
+        parameters.put("wellFactor", Double.toString(wellFactor));
+
+        return parameters;
+    }
+
+    public double evaluate(Board board) {
+        if (board.width != boardWidth) {
+            throw new IllegalArgumentException("Can only evaluate boards with the width " + boardWidth + ", but was: " + board.width);
+        }
+        int aggregateHeight = 0;
+        int holes = 0;
+        int bumpiness = 0;
+        int rowTransitions = 0;
+        int columnTransitions = 0;
+        int wells = 0;
+
+        long covered = 0;
+        long rowAbove = 0;
+
+        for (int y=0; y<board.height; y++) {
+            long row = board.rowCells(y);
+            if (covered == 0 && row == 0) {
+                continue;
+            }
+            holes += Long.bitCount(~row & covered & widthMask);
+            columnTransitions += Long.bitCount(row ^ rowAbove);
+
+            long open = ~(covered | row) & widthMask;
+            long leftOccupied = (row << 1) | 1;
+            long rightOccupied = (row >>> 1) | rightWall;
+            wells += Long.bitCount(open & leftOccupied & rightOccupied);
+
+            covered |= row;
+            aggregateHeight += Long.bitCount(covered);
+            bumpiness += Long.bitCount((covered ^ (covered >>> 1)) & innerMask);
+
+            rowTransitions += Long.bitCount((row ^ (row >>> 1)) & innerMask);
+            if ((row & 1) == 0) {
+                rowTransitions++;
+            }
+            if ((row & rightWall) == 0) {
+                rowTransitions++;
+            }
+            rowAbove = row;
+        }
+        // The floor is occupied.
+        columnTransitions += Long.bitCount(~rowAbove & widthMask);
+
+        return aggregateHeightFactor * aggregateHeight +
+                holeFactor * holes +
+                bumpinessFactor * bumpiness +
+                rowTransitionFactor * rowTransitions +
+                columnTransitionFactor * columnTransitions +
+                wellFactor * wells;
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.BoardHollows;
+import com.github.tetrisanalyzer.board.BoardOutline;
+import com.github.tetrisanalyzer.board.OutlineAreas;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.PieceMove;
+
+import java.util.Map;
+
+/**
+ * TengstrandBoardEvaluator141 specialized for its parameters and board size, which are fixed
+ * for the life of a game (enabled with the race or game setting "specialized evaluator").
+ *
+ * The factor tables are copied to final fields when the evaluator is created, and the area factors
+ * (width factor * height factor) are multiplied in advance into one table per area kind, so that
+ * the outline structure needs one lookup and one multiplication per area instead of three lookups,
+ * two multiplications and the branches that select the factors.
+ *
+ * The products are calculated in the same order as in TengstrandBoardEvaluator141,
+ * which gives exactly the same equities.
+ *
+ * The incremental evaluation (see IncrementalBoardEvaluator) is done by TengstrandBoardEvaluator141,
+ * so that PositionEvaluator still evaluates the leaves incrementally on the boards where that is faster.
+ */
+public class SpecializedTengstrandBoardEvaluator141 implements IncrementalBoardEvaluator {
+    private final TengstrandBoardEvaluator141 evaluator;
+    private final int boardWidth;
+    private final int boardHeight;
+    private final double maxEquity;
+
+    private final double[] heightFactors;
+    private final double[] hollowFactors;
+    private final double[] heightHollowOutlineFactors;
+
+    // areaWidthFactors[width] * areaHeightFactors[height] at index width * areaHeights + height,
+    // with areaHeightEqFactors for the areas with walls of the same height and areaWidthFloorFactors
+    // for the floor areas with a width between 2 and floorFactors.
+    private final int areaHeights;
+    private final double[] areaFactors;
+    private final double[] areaEqFactors;
+    private final double[] areaFloorFactors;
+    private final double[] areaFloorEqFactors;
+
+    /**
+     * Returns a specialized version of the evaluator if there is one, otherwise the evaluator itself.
+     */
+    public static BoardEvaluator specialize(BoardEvaluator evaluator) {
+        if (evaluator.getClass() == TengstrandBoardEvaluator141.class) {
+            return new SpecializedTengstrandBoardEvaluator141((TengstrandBoardEvaluator141)evaluator);
+        }
+        return evaluator;
+    }
+
+    public SpecializedTengstrandBoardEvaluator141(TengstrandBoardEvaluator141 evaluator) {
+        this.evaluator = evaluator;
+        boardWidth = evaluator.boardWidth;
+        boardHeight = evaluator.boardHeight;
+        maxEquity = evaluator.maxEquity;
+
+        heightFactors = evaluator.heightFactors.clone();
+        hollowFactors = evaluator.hollowFactors.clone();
+        heightHollowOutlineFactors = evaluator.heightHollowOutlineFactors.clone();
+
+        areaHeights = evaluator.areaHeightFactors.length;
+        areaFactors = areaFactors(evaluator.areaWidthFactors, evaluator.areaHeightFactors, false, evaluator);
+        areaEqFactors = areaFactors(evaluator.areaWidthFactors, evaluator.areaHeightEqFactors, false, evaluator);
+        areaFloorFactors = areaFactors(evaluator.areaWidthFactors, evaluator.areaHeightFactors, true, evaluator);
+        areaFloorEqFactors = areaFactors(evaluator.areaWidthFactors, evaluator.areaHeightEqFactors, true, evaluator);
+    }
+
+    private double[] areaFactors(double[] widthFactors, double[] heightFactors, boolean isFloor, TengstrandBoardEvaluator141 evaluator) {
+        double[] factors = new double[widthFactors.length * heightFactors.length];
+
+        for (int width=0; width<widthFactors.length; width++) {
+            boolean isFloorWidth = isFloor && width >= 2 && width <= evaluator.floorFactors;
+            double widthFactor = isFloorWidth ? evaluator.areaWidthFloorFactors[width] : widthFactors[width];
+
+            for (int height=0; height<heightFactors.length; height++) {
+                factors[width * heightFactors.length + height] = widthFactor * heightFactors[height];
+            }
+        }
+        return factors;
+    }
+
+    @Override
+    public double maxEquity() {
+        return maxEquity;
+    }
+
+    @Override
+    public double evaluate(Board board, AllValidPieceMoves allValidPieceMoves) {
+        return allValidPieceMoves.adjustEquityIfOccupiedStartPiece(evaluate(board), maxEquity, board);
+    }
+
+    @Override
+    public double evaluate(Board board, AllValidPieceMoves allValidPieceMoves, EvaluationState state) {
+        return evaluator.evaluate(board, allValidPieceMoves, state);
+    }
+
+    @Override
+    public double evaluate(Board board, AllValidPieceMoves allValidPieceMoves, EvaluationState parent,
+                           PieceMove pieceMove, int clearedRows, EvaluationState state) {
+        return evaluator.evaluate(board, allValidPieceMoves, parent, pieceMove, clearedRows, state);
+    }
+
+    @Override
+    public Map<String, String> parameters() {
+        return evaluator.parameters();
+    }
+
+    public double evaluate(Board board) {
+        if (board.width > boardWidth) {
+            throw new IllegalArgumentException("Can not evaluate board width > " + boardWidth);
+        }
+        EvaluationContext context = EvaluationContext.get();
+        BoardOutline outline = context.outline(board);
+
+        return evaluateBasedOnHollows(board, outline, context) +
+                evaluateBasedOnOutlineHeight(outline) +
+                evaluateBasedOnOutlineStructure(outline, context);
+    }
+
+    private double evaluateBasedOnHollows(Board board, BoardOutline outline, EvaluationContext context) {
+        double equity = 0;
+        BoardHollows hollows = context.hollows(board, outline, hollowFactors);
+
+        for (int y=hollows.minHoleY; y<=hollows.maxHoleY; y++) {
+            int minOutlineForHole = hollows.minOutlineForHole(y);
+
+            if (minOutlineForHole < boardHeight) {
+                double hollowFactor = hollows.hollowFactorProduct(minOutlineForHole, y);
+                equity += (1 - hollowFactor) * boardWidth * heightHollowOutlineFactors[y];
+            }
+        }
+        return equity;
+    }
+
+    private double evaluateBasedOnOutlineHeight(BoardOutline outline) {
+        double sum = 0;
+
+        for (int x=0; x<boardWidth; x++) {
+            sum += heightFactors[outline.get(x)];
+        }
+        return sum;
+    }
+
+    private double evaluateBasedOnOutlineStructure(BoardOutline outline, EvaluationContext context) {
+        double equity = 0;
+        OutlineAreas areas = context.areas(outline);
+
+        for (int i=0; i<areas.size(); i++) {
+            double[] factors;
+            if (areas.isFloor(i)) {
+                factors = areas.hasWallsSameHeight(i) ? areaFloorEqFactors : areaFloorFactors;
+            } else {
+                factors = areas.hasWallsSameHeight(i) ? areaEqFactors : areaFactors;
+            }
+            equity += factors[areas.width(i) * areaHeights + areas.height(i)] * heightHollowOutlineFactors[areas.y(i)];
+        }
+        return equity;
+    }
+}
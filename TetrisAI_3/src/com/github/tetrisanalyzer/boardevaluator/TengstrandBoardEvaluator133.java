@@ -2,6 +2,8 @@ package com.github.tetrisanalyzer.boardevaluator;
 
 import com.github.tetrisanalyzer.board.Board;
 import com.github.tetrisanalyzer.board.BoardOutline;
+import com.github.tetrisanalyzer.board.OutlineAreas;
+import com.github.tetrisanalyzer.board.RowPatterns;
 import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
 import com.github.tetrisanalyzer.settings.GameSettings;
 import com.github.tetrisanalyzer.settings.SettingsReader;
@@ -65,6 +67,7 @@ public class TengstrandBoardEvaluator133 implements BoardEvaluator {
     public double[] areaWidthFactors;
     public double[] areaHeightFactors;
     public double[] areaHeightEqFactors;
+    public double[] rowHollowFactors;
 
     public TengstrandBoardEvaluator133(int boardWidth, int boardHeight, GameSettings rules) {
         init(boardWidth, boardHeight);
@@ -128,6 +131,7 @@ public class TengstrandBoardEvaluator133 implements BoardEvaluator {
 
         initHeightFactors();
         initHollowFactors();
+        rowHollowFactors = RowPatterns.freeCellFactorsIfNarrow(boardWidth, hollowFactors);
         initHeightHollowOutlineFactor();
         initAreaWidthFactors();
         initAreaHeightFactors();
@@ -277,16 +281,21 @@ public class TengstrandBoardEvaluator133 implements BoardEvaluator {
         if (board.width > boardWidth) {
             throw new IllegalArgumentException("Can not evaluate board width > " + boardWidth);
         }
-        BoardOutline outline = new BoardOutline(board);
+        EvaluationContext context = EvaluationContext.get();
+        BoardOutline outline = context.outline(board);
 
-        return evaluateBasedOnHollows(board, outline) +
+        return evaluateBasedOnHollows(board, outline, context) +
                 evaluateBasedOnOutlineHeight(outline) +
-                evaluateBasedOnOutlineStructure(outline, board);
+                evaluateBasedOnOutlineStructure(outline, board, context);
     }
 
-    private double evaluateBasedOnHollows(Board board, BoardOutline outline) {
+    private double evaluateBasedOnHollows(Board board, BoardOutline outline, EvaluationContext context) {
+        if (rowHollowFactors != null && board.width == boardWidth) {
+            return RowPatterns.hollowEquity(board, outline, boardHeight, rowHollowFactors,
+                    1, heightHollowOutlineFactors, context.rowFactors(boardHeight + 1));
+        }
         double equity = 0;
-        double[] hollowFactorForRow = new double[boardHeight + 1];
+        double[] hollowFactorForRow = context.rowFactors(boardHeight + 1);
 
         for (int y=outline.minY; y<boardHeight; y++) {
             int numberOfEmptySquaresPerRow = 0;
@@ -323,48 +332,19 @@ public class TengstrandBoardEvaluator133 implements BoardEvaluator {
         return sum;
     }
 
-    private double evaluateBasedOnOutlineStructure(BoardOutline outline, Board board) {
+    private double evaluateBasedOnOutlineStructure(BoardOutline outline, Board board, EvaluationContext context) {
         double equity = 0;
+        OutlineAreas areas = context.areas(outline);
 
-        for (int x=1; x<=boardWidth; x++) {
-            boolean hasAreaWallsSameHeight = false;
-            boolean isAreaWallsSameHeightNotInitialized = true;
-            int areaHeight = 0;
-            int previousAreaWidth = 0;
-
-            int rightWallY = outline.get(x);
-            int startY = (x == boardWidth) ? outline.minY : outline.get(x);
-
-            // Calculate the size of the closed area in the outline (areaWidth * areaHeight).
-            for (int y=startY; y<=boardHeight; y++) {
-                int areaWidth = 0;
-
-                for (int areaX=x-1; areaX>=0; areaX--) {
-                    if (outline.get(areaX) <= y) {
-                        if (isAreaWallsSameHeightNotInitialized) {
-                            hasAreaWallsSameHeight = outline.get(areaX) == rightWallY;
-                            isAreaWallsSameHeightNotInitialized = false;
-                        }
-                        break;
-                    }
-                    areaWidth++;
-                }
-                if (areaWidth == 0 && previousAreaWidth == 0) {
-                    break;
-                } else {
-                    if (areaWidth > 0 && (areaWidth == previousAreaWidth || previousAreaWidth == 0)) {
-                        areaHeight++;
-                    } else {
-                        if (hasAreaWallsSameHeight) {
-                            equity += areaWidthFactors[previousAreaWidth] * areaHeightEqFactors[areaHeight] * heightHollowOutlineFactors[y - areaHeight];
-                        } else {
-                            equity += areaWidthFactors[previousAreaWidth] * areaHeightFactors[areaHeight] * heightHollowOutlineFactors[y - areaHeight];
-                        }
-                        areaHeight = 1;
-                        isAreaWallsSameHeightNotInitialized = true;
-                    }
-                    previousAreaWidth = areaWidth;
-                }
+        // The size of the closed areas in the outline (areaWidth * areaHeight).
+        for (int i=0; i<areas.size(); i++) {
+            int areaWidth = areas.width(i);
+            int areaHeight = areas.height(i);
+
+            if (areas.hasWallsSameHeight(i)) {
+                equity += areaWidthFactors[areaWidth] * areaHeightEqFactors[areaHeight] * heightHollowOutlineFactors[areas.y(i)];
+            } else {
+                equity += areaWidthFactors[areaWidth] * areaHeightFactors[areaHeight] * heightHollowOutlineFactors[areas.y(i)];
             }
         }
         return equity;
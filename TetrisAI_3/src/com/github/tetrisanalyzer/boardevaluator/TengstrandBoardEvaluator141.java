@@ -1,8 +1,11 @@
 package com.github.tetrisanalyzer.boardevaluator;
 
 import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.BoardHollows;
 import com.github.tetrisanalyzer.board.BoardOutline;
+import com.github.tetrisanalyzer.board.OutlineAreas;
 import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.PieceMove;
 import com.github.tetrisanalyzer.settings.GameSettings;
 import com.github.tetrisanalyzer.settings.SettingsReader;
 
@@ -12,7 +15,7 @@ import java.util.Map;
 /**
  * Joakim Tengstrand's Tetris AI, version 1.4 (an experiment, work in progress!)
  */
-public class TengstrandBoardEvaluator141 implements BoardEvaluator {
+public class TengstrandBoardEvaluator141 implements IncrementalBoardEvaluator {
     public int boardWidth;
     public int boardHeight;
     public double maxEquity;
@@ -282,37 +285,96 @@ public class TengstrandBoardEvaluator141 implements BoardEvaluator {
         if (board.width > boardWidth) {
             throw new IllegalArgumentException("Can not evaluate board width > " + boardWidth);
         }
-        BoardOutline outline = new BoardOutline(board);
+        EvaluationContext context = EvaluationContext.get();
+        BoardOutline outline = context.outline(board);
 
-        return evaluateBasedOnHollows(board, outline) +
+        return evaluateBasedOnHollows(board, outline, context) +
                 evaluateBasedOnOutlineHeight(outline) +
-                evaluateBasedOnOutlineStructure(outline, board);
+                evaluateBasedOnOutlineStructure(outline, board, context);
     }
 
-    private double evaluateBasedOnHollows(Board board, BoardOutline outline) {
-        double equity = 0;
-        double[] hollowFactorForRow = new double[boardHeight + 1];
-
-        for (int y=outline.minY; y<boardHeight; y++) {
-            int numberOfEmptySquaresPerRow = 0;
-            int minOutlineForHole = boardHeight;
-
-            for (int x=0; x<boardWidth; x++) {
-                if (board.isFree(x, y)) {
-                    numberOfEmptySquaresPerRow++;
-                    if (outline.get(x) < minOutlineForHole && outline.get(x) < y) {
-                        minOutlineForHole = outline.get(x);
-                    }
-                }
-            }
-            hollowFactorForRow[y] = hollowFactors[numberOfEmptySquaresPerRow];
+    @Override
+    public double evaluate(Board board, AllValidPieceMoves allValidPieceMoves, EvaluationState state) {
+        if (board.width > boardWidth) {
+            throw new IllegalArgumentException("Can not evaluate board width > " + boardWidth);
+        }
+        state.outline.calculate(board, false);
+        state.hollows.calculate(board, state.outline, hollowFactors);
+
+        return evaluate(board, allValidPieceMoves, state, 0, 0);
+    }
+
+    /**
+     * Moves that clear rows shift the rows above them, so those boards are evaluated from scratch.
+     * Otherwise the outline is updated for the columns of the piece, and the hollows and the hollow equity
+     * of the rows above the piece are taken from the parent board, where they are the same.
+     * The hollow equity is summed in the same order as by evaluate(board), which gives exactly the same equity.
+     */
+    @Override
+    public double evaluate(Board board, AllValidPieceMoves allValidPieceMoves, EvaluationState parent,
+                           PieceMove pieceMove, int clearedRows, EvaluationState state) {
+        if (clearedRows > 0) {
+            return evaluate(board, allValidPieceMoves, state);
+        }
+        int pieceY = pieceMove.move.y;
+        state.outline.copy(parent.outline);
+        for (int y=0; y<pieceMove.height(); y++) {
+            state.outline.addCells(pieceY + y, pieceMove.rowCells(y));
+        }
+        state.hollows.calculate(board, state.outline, hollowFactors, parent.hollows, pieceY);
+
+        BoardHollows parentHollows = parent.hollows;
+        double hollowEquity;
+        if (pieceY <= parentHollows.minHoleY) {
+            hollowEquity = 0;
+        } else if (pieceY > parentHollows.maxHoleY) {
+            hollowEquity = parent.hollowEquity;
+        } else {
+            hollowEquity = parent.hollowEquities[pieceY];
+        }
+        if (pieceY > parentHollows.minHoleY) {
+            int toY = Math.min(pieceY, parentHollows.maxHoleY + 1);
+            System.arraycopy(parent.hollowEquities, parentHollows.minHoleY, state.hollowEquities(board.height),
+                    parentHollows.minHoleY, toY - parentHollows.minHoleY);
+        }
+        return evaluate(board, allValidPieceMoves, state, pieceY, hollowEquity);
+    }
+
+    /**
+     * Evaluates the board from its outline and hollows in 'state', where the hollow equity
+     * of the rows above fromY is already known.
+     */
+    private double evaluate(Board board, AllValidPieceMoves allValidPieceMoves, EvaluationState state, int fromY, double hollowEquity) {
+        BoardHollows hollows = state.hollows;
+        double[] hollowEquities = state.hollowEquities(board.height);
+
+        for (int y=Math.max(fromY, hollows.minHoleY); y<=hollows.maxHoleY; y++) {
+            hollowEquities[y] = hollowEquity;
+            int minOutlineForHole = hollows.minOutlineForHole(y);
 
             if (minOutlineForHole < boardHeight) {
-                double hollowFactor = 1;
+                double hollowFactor = hollows.hollowFactorProduct(minOutlineForHole, y);
+                hollowEquity += (1 - hollowFactor) * boardWidth * heightHollowOutlineFactors[y];
+            }
+        }
+        state.hollowEquity = hollowEquity;
 
-                for (int row=minOutlineForHole; row<=y; row++) {
-                    hollowFactor *= hollowFactorForRow[row];
-                }
+        double equity = hollowEquity +
+                evaluateBasedOnOutlineHeight(state.outline) +
+                evaluateBasedOnOutlineStructure(state.outline, board, EvaluationContext.get());
+
+        return allValidPieceMoves.adjustEquityIfOccupiedStartPiece(equity, maxEquity, board);
+    }
+
+    private double evaluateBasedOnHollows(Board board, BoardOutline outline, EvaluationContext context) {
+        double equity = 0;
+        BoardHollows hollows = context.hollows(board, outline, hollowFactors);
+
+        for (int y=hollows.minHoleY; y<=hollows.maxHoleY; y++) {
+            int minOutlineForHole = hollows.minOutlineForHole(y);
+
+            if (minOutlineForHole < boardHeight) {
+                double hollowFactor = hollows.hollowFactorProduct(minOutlineForHole, y);
                 equity += (1 - hollowFactor) * boardWidth * heightHollowOutlineFactors[y];
             }
         }
@@ -328,61 +390,26 @@ public class TengstrandBoardEvaluator141 implements BoardEvaluator {
         return sum;
     }
 
-    private double evaluateBasedOnOutlineStructure(BoardOutline outline, Board board) {
+    private double evaluateBasedOnOutlineStructure(BoardOutline outline, Board board, EvaluationContext context) {
         double equity = 0;
+        OutlineAreas areas = context.areas(outline);
 
-        for (int x=1; x<=boardWidth; x++) {
-            boolean hasAreaWallsSameHeight = false;
-            boolean isAreaWallsSameHeightNotInitialized = true;
-            int areaHeight = 0;
-            int previousAreaWidth = 0;
+        // The size of the closed areas in the outline (areaWidth * areaHeight).
+        for (int i=0; i<areas.size(); i++) {
+            int areaWidth = areas.width(i);
+            int areaHeight = areas.height(i);
 
-            int rightWallY = outline.get(x);
-            int startY = (x == boardWidth) ? outline.minY : outline.get(x);
-
-            boolean isFloor = true;
-            int floor = outline.get(x-1);
-            for (int areaX=x-1; areaX>=0; areaX--) {
-                isFloor = isFloor && outline.get(areaX) == floor;
-            }
-
-            // Calculate the size of the closed area in the outline (areaWidth * areaHeight).
-            for (int y=startY; y<=boardHeight; y++) {
-                int areaWidth = 0;
-
-                for (int areaX=x-1; areaX>=0; areaX--) {
-                    if (outline.get(areaX) <= y) {
-                        if (isAreaWallsSameHeightNotInitialized) {
-                            hasAreaWallsSameHeight = outline.get(areaX) == rightWallY;
-                            isAreaWallsSameHeightNotInitialized = false;
-                        }
-                        break;
-                    }
-                    areaWidth++;
+            if (areas.isFloor(i) && areaWidth >= 2 && areaWidth <= floorFactors) {
+                if (areas.hasWallsSameHeight(i)) {
+                    equity += areaWidthFloorFactors[areaWidth] * areaHeightEqFactors[areaHeight] * heightHollowOutlineFactors[areas.y(i)];
+                } else {
+                    equity += areaWidthFloorFactors[areaWidth] * areaHeightFactors[areaHeight] * heightHollowOutlineFactors[areas.y(i)];
                 }
-                if (areaWidth == 0 && previousAreaWidth == 0) {
-                    break;
+            } else {
+                if (areas.hasWallsSameHeight(i)) {
+                    equity += areaWidthFactors[areaWidth] * areaHeightEqFactors[areaHeight] * heightHollowOutlineFactors[areas.y(i)];
                 } else {
-                    if (areaWidth > 0 && (areaWidth == previousAreaWidth || previousAreaWidth == 0)) {
-                        areaHeight++;
-                    } else {
-                        if (isFloor && previousAreaWidth >= 2 && previousAreaWidth <= floorFactors) {
-                            if (hasAreaWallsSameHeight) {
-                                equity += areaWidthFloorFactors[previousAreaWidth] * areaHeightEqFactors[areaHeight] * heightHollowOutlineFactors[y - areaHeight];
-                            } else {
-                                equity += areaWidthFloorFactors[previousAreaWidth] * areaHeightFactors[areaHeight] * heightHollowOutlineFactors[y - areaHeight];
-                            }
-                        } else {
-                            if (hasAreaWallsSameHeight) {
-                                equity += areaWidthFactors[previousAreaWidth] * areaHeightEqFactors[areaHeight] * heightHollowOutlineFactors[y - areaHeight];
-                            } else {
-                                equity += areaWidthFactors[previousAreaWidth] * areaHeightFactors[areaHeight] * heightHollowOutlineFactors[y - areaHeight];
-                            }
-                        }
-                        areaHeight = 1;
-                        isAreaWallsSameHeightNotInitialized = true;
-                    }
-                    previousAreaWidth = areaWidth;
+                    equity += areaWidthFactors[areaWidth] * areaHeightFactors[areaHeight] * heightHollowOutlineFactors[areas.y(i)];
                 }
             }
         }
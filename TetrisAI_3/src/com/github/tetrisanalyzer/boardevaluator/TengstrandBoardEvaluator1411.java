@@ -1,7 +1,9 @@
 package com.github.tetrisanalyzer.boardevaluator;
 
 import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.BoardHollows;
 import com.github.tetrisanalyzer.board.BoardOutline;
+import com.github.tetrisanalyzer.board.OutlineAreas;
 import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
 import com.github.tetrisanalyzer.settings.GameSettings;
 import com.github.tetrisanalyzer.settings.SettingsReader;
@@ -284,38 +286,24 @@ public class TengstrandBoardEvaluator1411 implements BoardEvaluator {
         if (board.width > boardWidth) {
             throw new IllegalArgumentException("Can not evaluate board width > " + boardWidth);
         }
-        BoardOutline outline = new BoardOutline(board);
+        EvaluationContext context = EvaluationContext.get();
+        BoardOutline outline = context.outline(board);
 
-        return evaluateBasedOnHollows(board, outline) +
+        return evaluateBasedOnHollows(board, outline, context) +
                 evaluateBasedOnOutlineHeight(outline) +
-                evaluateBasedOnOutlineStructure(outline, board);
+                evaluateBasedOnOutlineStructure(outline, board, context);
     }
 
-    private double evaluateBasedOnHollows(Board board, BoardOutline outline) {
+    private double evaluateBasedOnHollows(Board board, BoardOutline outline, EvaluationContext context) {
         double equity = 0;
-        double[] hollowFactorForRow = new double[boardHeight + 1];
-
-        for (int y=outline.minY; y<boardHeight; y++) {
-            int numberOfEmptySquaresPerRow = 0;
-            int minOutlineForHole = boardHeight;
-
-            for (int x=0; x<boardWidth; x++) {
-                if (board.isFree(x, y)) {
-                    numberOfEmptySquaresPerRow++;
-                    if (outline.get(x) < minOutlineForHole && outline.get(x) < y) {
-                        minOutlineForHole = outline.get(x);
-                    }
-                }
-            }
-            hollowFactorForRow[y] = hollowFactors[numberOfEmptySquaresPerRow];
+        BoardHollows hollows = context.hollows(board, outline, hollowFactors);
 
-            if (minOutlineForHole < boardHeight) {
-                double hollowFactor = 1;
+        for (int y=hollows.minHoleY; y<=hollows.maxHoleY; y++) {
+            int minOutlineForHole = hollows.minOutlineForHole(y);
 
-                for (int row=minOutlineForHole; row<=y; row++) {
-                    hollowFactor *= hollowFactorForRow[row];
-                }
-                equity += (1 - hollowFactor) * boardWidth * heightHollowOutlineFactors[y];
+            if (minOutlineForHole < boardHeight) {
+                double rowsHollowFactor = hollows.hollowFactorProduct(minOutlineForHole, y);
+                equity += (1 - rowsHollowFactor) * boardWidth * heightHollowOutlineFactors[y];
             }
         }
         return equity * hollowFactor;
@@ -330,61 +318,26 @@ public class TengstrandBoardEvaluator1411 implements BoardEvaluator {
         return sum;
     }
 
-    private double evaluateBasedOnOutlineStructure(BoardOutline outline, Board board) {
+    private double evaluateBasedOnOutlineStructure(BoardOutline outline, Board board, EvaluationContext context) {
         double equity = 0;
+        OutlineAreas areas = context.areas(outline);
 
-        for (int x=1; x<=boardWidth; x++) {
-            boolean hasAreaWallsSameHeight = false;
-            boolean isAreaWallsSameHeightNotInitialized = true;
-            int areaHeight = 0;
-            int previousAreaWidth = 0;
+        // The size of the closed areas in the outline (areaWidth * areaHeight).
+        for (int i=0; i<areas.size(); i++) {
+            int areaWidth = areas.width(i);
+            int areaHeight = areas.height(i);
 
-            int rightWallY = outline.get(x);
-            int startY = (x == boardWidth) ? outline.minY : outline.get(x);
-
-            boolean isFloor = true;
-            int floor = outline.get(x-1);
-            for (int areaX=x-1; areaX>=0; areaX--) {
-                isFloor = isFloor && outline.get(areaX) == floor;
-            }
-
-            // Calculate the size of the closed area in the outline (areaWidth * areaHeight).
-            for (int y=startY; y<=boardHeight; y++) {
-                int areaWidth = 0;
-
-                for (int areaX=x-1; areaX>=0; areaX--) {
-                    if (outline.get(areaX) <= y) {
-                        if (isAreaWallsSameHeightNotInitialized) {
-                            hasAreaWallsSameHeight = outline.get(areaX) == rightWallY;
-                            isAreaWallsSameHeightNotInitialized = false;
-                        }
-                        break;
-                    }
-                    areaWidth++;
+            if (areas.isFloor(i) && areaWidth >= 2 && areaWidth <= floorFactors) {
+                if (areas.hasWallsSameHeight(i)) {
+                    equity += areaWidthFloorFactors[areaWidth] * areaHeightEqFactors[areaHeight] * heightHollowOutlineFactors[areas.y(i)];
+                } else {
+                    equity += areaWidthFloorFactors[areaWidth] * areaHeightFactors[areaHeight] * heightHollowOutlineFactors[areas.y(i)];
                 }
-                if (areaWidth == 0 && previousAreaWidth == 0) {
-                    break;
+            } else {
+                if (areas.hasWallsSameHeight(i)) {
+                    equity += areaWidthFactors[areaWidth] * areaHeightEqFactors[areaHeight] * heightHollowOutlineFactors[areas.y(i)];
                 } else {
-                    if (areaWidth > 0 && (areaWidth == previousAreaWidth || previousAreaWidth == 0)) {
-                        areaHeight++;
-                    } else {
-                        if (isFloor && previousAreaWidth >= 2 && previousAreaWidth <= floorFactors) {
-                            if (hasAreaWallsSameHeight) {
-                                equity += areaWidthFloorFactors[previousAreaWidth] * areaHeightEqFactors[areaHeight] * heightHollowOutlineFactors[y - areaHeight];
-                            } else {
-                                equity += areaWidthFloorFactors[previousAreaWidth] * areaHeightFactors[areaHeight] * heightHollowOutlineFactors[y - areaHeight];
-                            }
-                        } else {
-                            if (hasAreaWallsSameHeight) {
-                                equity += areaWidthFactors[previousAreaWidth] * areaHeightEqFactors[areaHeight] * heightHollowOutlineFactors[y - areaHeight];
-                            } else {
-                                equity += areaWidthFactors[previousAreaWidth] * areaHeightFactors[areaHeight] * heightHollowOutlineFactors[y - areaHeight];
-                            }
-                        }
-                        areaHeight = 1;
-                        isAreaWallsSameHeightNotInitialized = true;
-                    }
-                    previousAreaWidth = areaWidth;
+                    equity += areaWidthFactors[areaWidth] * areaHeightFactors[areaHeight] * heightHollowOutlineFactors[areas.y(i)];
                 }
             }
         }
@@ -1,7 +1,9 @@
 package com.github.tetrisanalyzer.boardevaluator;
 
 import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.BoardHollows;
 import com.github.tetrisanalyzer.board.BoardOutline;
+import com.github.tetrisanalyzer.board.OutlineAreas;
 import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
 import com.github.tetrisanalyzer.settings.GameSettings;
 import com.github.tetrisanalyzer.settings.SettingsReader;
@@ -273,55 +275,38 @@ public class TengstrandBoardEvaluator15 implements BoardEvaluator {
         if (board.width > boardWidth) {
             throw new IllegalArgumentException("Can not evaluate board width > " + boardWidth);
         }
-        BoardOutline outline = new BoardOutline(board);
+        EvaluationContext context = EvaluationContext.get();
+        BoardOutline outline = context.outline(board);
 
-        return evaluateBasedOnHollows(board, outline) +
+        return evaluateBasedOnHollows(board, outline, context) +
                 evaluateBasedOnOutlineHeight(outline) +
-                evaluateBasedOnOutlineStructure(outline);
+                evaluateBasedOnOutlineStructure(outline, context);
     }
 
-    private double evaluateBasedOnHollows(Board board, BoardOutline outline) {
-        int minrowy = boardHeight;
-        int[] squares = new int[boardHeight + 1];
-        boolean[] coveredhole = new boolean[boardHeight];
-
-        for (int x=0; x<boardWidth; x++) {
-            int miny = outline.get(x);
-            squares[miny]++;
-
-            for (int y=miny + 1; y<boardHeight; y++) {
-                if (board.isFree(x, y)) {
-                    coveredhole[y] = true;
-                    if (outline.get(x) < minrowy) {
-                        minrowy = outline.get(x);
-                    }
-                } else {
-                    squares[y]++;
-                }
-            }
-        }
-        int maxy;
-        for (maxy=boardHeight-1; maxy>=0 && !coveredhole[maxy]; maxy--);
+    private double evaluateBasedOnHollows(Board board, BoardOutline outline, EvaluationContext context) {
+        BoardHollows hollows = context.hollows(board, outline, null);
+        int minrowy = hollows.minHoleOutline;
+        int maxy = hollows.maxHoleY;
 
         double equity = 0;
         double factor = 1;
         int y;
 
         // Calculate the top rows
-        for (y=minrowy; y<=maxy && !coveredhole[y]; y++) {
-            factor *= hollowTopFactors[boardWidth-squares[y]];
+        for (y=minrowy; y<=maxy && !hollows.hasHoles(y); y++) {
+            factor *= hollowTopFactors[hollows.freeCells(y)];
             equity += (1 - factor) * boardWidth;
         }
         for (; y<=maxy; y++) {
-            if (coveredhole[y]) {
-                factor *= hollowFactors[boardWidth-squares[y]];
+            if (hollows.hasHoles(y)) {
+                factor *= hollowFactors[hollows.freeCells(y)];
                 equity += (1 - factor) * boardWidth;
             } else {
-                equity += hollowUncoveredFactors[squares[y]] * boardWidth;
+                equity += hollowUncoveredFactors[board.numberOfOccupiedCells(y)] * boardWidth;
             }
         }
         for (; y<boardHeight; y++) {
-            equity += hollowUncoveredFactors[squares[y]] * boardWidth;
+            equity += hollowUncoveredFactors[board.numberOfOccupiedCells(y)] * boardWidth;
         }
 
         return equity;
@@ -336,48 +321,19 @@ public class TengstrandBoardEvaluator15 implements BoardEvaluator {
         return sum;
     }
 
-    private double evaluateBasedOnOutlineStructure(BoardOutline outline) {
+    private double evaluateBasedOnOutlineStructure(BoardOutline outline, EvaluationContext context) {
         double equity = 0;
+        OutlineAreas areas = context.areas(outline);
+
+        // The size of the closed areas in the outline (areaWidth * areaHeight).
+        for (int i=0; i<areas.size(); i++) {
+            int areaWidth = areas.width(i);
+            int areaHeight = areas.height(i);
 
-        for (int x=1; x<=boardWidth; x++) {
-            boolean hasAreaWallsSameHeight = false;
-            boolean isAreaWallsSameHeightNotInitialized = true;
-            int areaHeight = 0;
-            int previousAreaWidth = 0;
-
-            int rightWallY = outline.get(x);
-            int startY = (x == boardWidth) ? outline.minY : outline.get(x);
-
-            // Calculate the size of the closed area in the outline (areaWidth * areaHeight).
-            for (int y=startY; y<=boardHeight; y++) {
-                int areaWidth = 0;
-
-                for (int areaX=x-1; areaX>=0; areaX--) {
-                    if (outline.get(areaX) <= y) {
-                        if (isAreaWallsSameHeightNotInitialized) {
-                            hasAreaWallsSameHeight = outline.get(areaX) == rightWallY;
-                            isAreaWallsSameHeightNotInitialized = false;
-                        }
-                        break;
-                    }
-                    areaWidth++;
-                }
-                if (areaWidth == 0 && previousAreaWidth == 0) {
-                    break;
-                } else {
-                    if (areaWidth > 0 && (areaWidth == previousAreaWidth || previousAreaWidth == 0)) {
-                        areaHeight++;
-                    } else {
-                        if (hasAreaWallsSameHeight) {
-                            equity += areaWidthFactors[previousAreaWidth] * areaHeightEqFactors[areaHeight];
-                        } else {
-                            equity += areaWidthFactors[previousAreaWidth] * areaHeightFactors[areaHeight];
-                        }
-                        areaHeight = 1;
-                        isAreaWallsSameHeightNotInitialized = true;
-                    }
-                    previousAreaWidth = areaWidth;
-                }
+            if (areas.hasWallsSameHeight(i)) {
+                equity += areaWidthFactors[areaWidth] * areaHeightEqFactors[areaHeight];
+            } else {
+                equity += areaWidthFactors[areaWidth] * areaHeightFactors[areaHeight];
             }
         }
         return equity;
@@ -1,7 +1,9 @@
 package com.github.tetrisanalyzer.boardevaluator;
 
 import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.BoardHollows;
 import com.github.tetrisanalyzer.board.BoardOutline;
+import com.github.tetrisanalyzer.board.OutlineAreas;
 import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
 import com.github.tetrisanalyzer.settings.GameSettings;
 import com.github.tetrisanalyzer.settings.SettingsReader;
@@ -278,84 +280,41 @@ public class TengstrandBoardEvaluator20 implements BoardEvaluator {
         if (board.width > boardWidth) {
             throw new IllegalArgumentException("Can not evaluate board width > " + boardWidth);
         }
-        BoardOutline outline = new BoardOutline(board);
+        EvaluationContext context = EvaluationContext.get();
+        BoardOutline outline = context.outline(board);
 
-        return evaluateBasedOnHollows(board, outline) +
-               evaluateBasedOnOutlineStructure(outline);
+        return evaluateBasedOnHollows(board, outline, context) +
+               evaluateBasedOnOutlineStructure(outline, context);
     }
 
-    private double evaluateBasedOnHollows(Board board, BoardOutline outline) {
+    private double evaluateBasedOnHollows(Board board, BoardOutline outline, EvaluationContext context) {
         double equity = 0;
-        double[] hollowFactorForRow = new double[boardHeight + 1];
-
-        for (int y=outline.minY; y<boardHeight; y++) {
-            int numberOfEmptySquaresPerRow = 0;
-            int minYForOutlineHole = boardHeight;
-
-            for (int x=0; x<boardWidth; x++) {
-                if (board.isFree(x, y)) {
-                    numberOfEmptySquaresPerRow++;
-                    if (outline.get(x) < minYForOutlineHole && outline.get(x) < y) {
-                        minYForOutlineHole = outline.get(x);
-                    }
-                }
-            }
-            hollowFactorForRow[y] = hollowFactors[numberOfEmptySquaresPerRow];
+        BoardHollows hollows = context.hollows(board, outline, hollowFactors);
 
-            if (minYForOutlineHole < boardHeight) {
-                double hollowFactor = 1;
+        for (int y=hollows.minHoleY; y<=hollows.maxHoleY; y++) {
+            int minYForOutlineHole = hollows.minOutlineForHole(y);
 
-                for (int row=minYForOutlineHole; row<=y; row++) {
-                    hollowFactor *= hollowFactorForRow[row];
-                }
+            if (minYForOutlineHole < boardHeight) {
+                double hollowFactor = hollows.hollowFactorProduct(minYForOutlineHole, y);
                 equity += (1 - hollowFactor) * boardWidth * hollowHeightFactors[minYForOutlineHole];
             }
         }
         return equity;
     }
 
-    private double evaluateBasedOnOutlineStructure(BoardOutline outline) {
+    private double evaluateBasedOnOutlineStructure(BoardOutline outline, EvaluationContext context) {
         double equity = 0;
+        OutlineAreas areas = context.areas(outline);
+
+        // The size of the closed areas in the outline (areaWidth * areaHeight).
+        for (int i=0; i<areas.size(); i++) {
+            int areaWidth = areas.width(i);
+            int areaHeight = areas.height(i);
 
-        for (int x=1; x<=boardWidth; x++) {
-            boolean hasAreaWallsSameHeight = false;
-            boolean isAreaWallsSameHeightNotInitialized = true;
-            int areaHeight = 0;
-            int previousAreaWidth = 0;
-
-            int rightWallY = outline.get(x);
-            int startY = (x == boardWidth) ? outline.minY : outline.get(x);
-
-            // Calculate the size of the closed area in the outline (areaWidth * areaHeight).
-            for (int y=startY; y<=boardHeight; y++) {
-                int areaWidth = 0;
-
-                for (int areaX=x-1; areaX>=0; areaX--) {
-                    if (outline.get(areaX) <= y) {
-                        if (isAreaWallsSameHeightNotInitialized) {
-                            hasAreaWallsSameHeight = outline.get(areaX) == rightWallY;
-                            isAreaWallsSameHeightNotInitialized = false;
-                        }
-                        break;
-                    }
-                    areaWidth++;
-                }
-                if (areaWidth == 0 && previousAreaWidth == 0) {
-                    break;
-                } else {
-                    if (areaWidth > 0 && (areaWidth == previousAreaWidth || previousAreaWidth == 0)) {
-                        areaHeight++;
-                    } else {
-                        if (hasAreaWallsSameHeight) {
-                            equity += areaWidthFactors[previousAreaWidth] * areaHeightEqFactors[areaHeight] * outlineHeightFactors[startY];
-                        } else {
-                            equity += areaWidthFactors[previousAreaWidth] * areaHeightFactors[areaHeight] * outlineHeightFactors[startY];
-                        }
-                        areaHeight = 1;
-                        isAreaWallsSameHeightNotInitialized = true;
-                    }
-                    previousAreaWidth = areaWidth;
-                }
+            if (areas.hasWallsSameHeight(i)) {
+                equity += areaWidthFactors[areaWidth] * areaHeightEqFactors[areaHeight] * outlineHeightFactors[areas.startY(i)];
+            } else {
+                equity += areaWidthFactors[areaWidth] * areaHeightFactors[areaHeight] * outlineHeightFactors[areas.startY(i)];
             }
         }
         return equity;
@@ -2,25 +2,33 @@ package com.github.tetrisanalyzer.game;
 
 import com.github.tetrisanalyzer.board.Board;
 import com.github.tetrisanalyzer.board.ColoredBoard;
+import com.github.tetrisanalyzer.board.PackedBoard;
 import com.github.tetrisanalyzer.board.TextBoard;
 import com.github.tetrisanalyzer.boardevaluator.BoardEvaluator;
+import com.github.tetrisanalyzer.boardevaluator.CachingBoardEvaluator;
+import com.github.tetrisanalyzer.boardevaluator.SpecializedTengstrandBoardEvaluator141;
 import com.github.tetrisanalyzer.move.Move;
 import com.github.tetrisanalyzer.move.MoveEquity;
 import com.github.tetrisanalyzer.piece.Piece;
 import com.github.tetrisanalyzer.piecegenerator.PieceGenerator;
 import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMovesCache;
 import com.github.tetrisanalyzer.piecemove.PieceMove;
 import com.github.tetrisanalyzer.settings.GameSettings;
 import com.github.tetrisanalyzer.settings.PieceSettings;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Plays a game of Tetris using specified board, board evaluator, piece generator and settings.
  */
 public class Game implements Runnable {
     private AllValidPieceMoves allValidPieceMoves;
+    private PositionEvaluator positionEvaluator;
+    public TranspositionTable transpositionTable;
+    public CachingBoardEvaluator evaluationCache;
 
     private boolean stop;
     public boolean stopped;
@@ -31,7 +39,6 @@ public class Game implements Runnable {
     public boolean hide;
     public boolean paused;
     public boolean waiting;
-    private int numberOfCells;
     public Board board;
     public ColoredBoard coloredBoard;
     private final BoardEvaluator boardEvaluator;
@@ -47,13 +54,23 @@ public class Game implements Runnable {
     private List<BoardPieceMove> lastBoards = new ArrayList<>();
 
     public Game(GameState gameState, GameSettings settings, boolean paused, boolean hide) {
-        this.board = gameState.board.copy();
+        state = gameState;
+        this.board = newBoard(gameState.board);
         if (gameState.coloredBoard != null) {
             this.coloredBoard = gameState.coloredBoard.copy();
         }
-        state = gameState;
         message = new GameMessage(gameState);
-        boardEvaluator = gameState.boardEvaluator;
+        allValidPieceMoves = AllValidPieceMovesCache.get(board.width, board.height, settings);
+
+        BoardEvaluator evaluator = gameState.specializedEvaluator ? SpecializedTengstrandBoardEvaluator141.specialize(gameState.boardEvaluator) : gameState.boardEvaluator;
+        // Ignored unless both the evaluator and the moves are left/right symmetric (RaceGameSettings refuses it).
+        boolean mirrorSymmetry = gameState.mirrorSymmetry && evaluator.isMirrorSymmetric() &&
+                allValidPieceMoves.isMirrorSymmetric(board.width);
+        if (gameState.evaluationCacheSize > 0) {
+            evaluationCache = CachingBoardEvaluator.create(evaluator, gameState.evaluationCacheSize, gameState.evaluationCacheEviction, mirrorSymmetry);
+            evaluator = evaluationCache;
+        }
+        boardEvaluator = evaluator;
         this.settings = settings;
         pieceGenerator = state.pieceGenerator;
 
@@ -63,11 +80,22 @@ public class Game implements Runnable {
 
         this.paused = paused;
         this.hide = hide;
-        numberOfCells = board.numberOfOccupiedCells();
-
-        allValidPieceMoves = new AllValidPieceMoves(board, settings);
 
         pieces = Piece.pieces(settings);
+
+        if (state.transpositionTableSize > 0) {
+            transpositionTable = new TranspositionTable(state.transpositionTableSize, mirrorSymmetry);
+        }
+        ForkJoinPool forkJoinPool = state.parallelSearch ? ForkJoinPool.commonPool() : null;
+        positionEvaluator = new PositionEvaluator(allValidPieceMoves, pieces, boardEvaluator, transpositionTable,
+                forkJoinPool, state.parallelThreshold);
+    }
+
+    private Board newBoard(Board board) {
+        if (state.circularRows) {
+            board = board.withCircularRows();
+        }
+        return state.packedBoard ? PackedBoard.create(board) : board.copy();
     }
 
     private List<Piece> nextPiece(List<String> pieces) {
@@ -125,9 +153,8 @@ public class Game implements Runnable {
             int clearedRows = bestMove.setPiece(board);
             setPieceOnColoredBoard(bestMove.piece, bestMove.move);
             state.rows += clearedRows;
-            numberOfCells += 4 - clearedRows * board.width;
 
-            state.distribution.increaseArea(numberOfCells);
+            state.distribution.increaseArea(board.numberOfOccupiedCells());
             state.duration.setEndTime();
             state.rowsPerLastSecond.update(state.duration.endMillis, state.rows + state.totalRows);
             state.piecesPerLastSecond.update(state.duration.endMillis, state.totalPieces);
@@ -168,9 +195,8 @@ public class Game implements Runnable {
             setMaxRows();
             state.pieces = 0;
             state.rows = 0;
-            board = state.startBoard.copy();
+            board = newBoard(state.startBoard);
             initColoredBoard();
-            numberOfCells = board.numberOfOccupiedCells();
             bestMove = bestMove(board, nextPieces);
             if (bestMove == null) {
                 throw new IllegalStateException("The starting position is occupied!");
@@ -183,7 +209,7 @@ public class Game implements Runnable {
         if (state.masterDepth > 0) {
             double equity = bestMove.equity;
             NextPieces nextPieces = new NextPieces(pieceGenerator, settings, state.masterDepth, 0, null);
-            double depthEquity = PositionEvaluator.evaluate(boardEvaluator, bestMove.pieceMove, board, allValidPieceMoves, pieces, nextPieces, boardEvaluator.maxEquity());
+            double depthEquity = positionEvaluator.evaluate(bestMove.pieceMove, board, nextPieces, boardEvaluator.maxEquity());
             state.totalEquityDiff += Math.abs(equity - depthEquity);
         }
         setShadowOnColoredBoard(bestMove.pieceMove.piece, bestMove.pieceMove.move);
@@ -228,7 +254,7 @@ public class Game implements Runnable {
     }
 
     private MoveEquity bestMove(Board board, NextPieces nextPieces) {
-        return PositionEvaluator.bestMove(allValidPieceMoves, pieces, boardEvaluator, board, nextPieces);
+        return positionEvaluator.bestMove(board, nextPieces);
     }
 
     public void togglePaused() {
@@ -4,6 +4,7 @@ package com.github.tetrisanalyzer.game;
 import com.github.tetrisanalyzer.board.Board;
 import com.github.tetrisanalyzer.board.ColoredBoard;
 import com.github.tetrisanalyzer.boardevaluator.BoardEvaluator;
+import com.github.tetrisanalyzer.boardevaluator.CachingBoardEvaluator;
 import com.github.tetrisanalyzer.piecegenerator.PieceGenerator;
 
 import java.util.List;
@@ -23,6 +24,15 @@ public class GameState {
     public final PieceGenerator pieceGenerator;
     public final int masterDepth;
     public double totalEquityDiff;
+    public int transpositionTableSize;
+    public boolean parallelSearch;
+    public int parallelThreshold;
+    public boolean packedBoard;
+    public boolean circularRows;
+    public boolean specializedEvaluator;
+    public boolean mirrorSymmetry;
+    public int evaluationCacheSize;
+    public CachingBoardEvaluator.Eviction evaluationCacheEviction = CachingBoardEvaluator.Eviction.SECOND_CHANCE;
     public final int level;
     public final int numberOfKnownPieces;
     public final List<String> nextPieces;
@@ -124,9 +134,19 @@ public class GameState {
     }
 
     public GameState copy() {
-        return new GameState(duration, board, startBoard, distribution, coloredBoard, boardEvaluator, pieceGenerator,
+        GameState copy = new GameState(duration, board, startBoard, distribution, coloredBoard, boardEvaluator, pieceGenerator,
             masterDepth, totalEquityDiff, level, numberOfKnownPieces, nextPieces, totalPieces,
                 gamesToPlay, piecesToPlay, games, rows, minRows, maxRows, totalRows);
+        copy.transpositionTableSize = transpositionTableSize;
+        copy.parallelSearch = parallelSearch;
+        copy.parallelThreshold = parallelThreshold;
+        copy.packedBoard = packedBoard;
+        copy.circularRows = circularRows;
+        copy.specializedEvaluator = specializedEvaluator;
+        copy.mirrorSymmetry = mirrorSymmetry;
+        copy.evaluationCacheSize = evaluationCacheSize;
+        copy.evaluationCacheEviction = evaluationCacheEviction;
+        return copy;
     }
 
     private GameState(Duration duration, Board board, Board startBoard, Distribution distribution,
@@ -205,6 +225,15 @@ public class GameState {
                 ", pieceGenerator=" + pieceGenerator +
                 ", masterDepth=" + masterDepth +
                 ", totalEquityDiff=" + totalEquityDiff +
+                ", transpositionTableSize=" + transpositionTableSize +
+                ", parallelSearch=" + parallelSearch +
+                ", parallelThreshold=" + parallelThreshold +
+                ", packedBoard=" + packedBoard +
+                ", circularRows=" + circularRows +
+                ", specializedEvaluator=" + specializedEvaluator +
+                ", mirrorSymmetry=" + mirrorSymmetry +
+                ", evaluationCacheSize=" + evaluationCacheSize +
+                ", evaluationCacheEviction=" + evaluationCacheEviction +
                 ", level=" + level +
                 ", numberOfKnownPieces" + numberOfKnownPieces +
                 ", nextPieces=" + nextPieces +
@@ -2,6 +2,8 @@ package com.github.tetrisanalyzer.game;
 
 import com.github.tetrisanalyzer.board.Board;
 import com.github.tetrisanalyzer.boardevaluator.BoardEvaluator;
+import com.github.tetrisanalyzer.boardevaluator.EvaluationState;
+import com.github.tetrisanalyzer.boardevaluator.IncrementalBoardEvaluator;
 import com.github.tetrisanalyzer.move.MoveEquity;
 import com.github.tetrisanalyzer.move.ValidMoves;
 import com.github.tetrisanalyzer.piece.Piece;
@@ -9,40 +11,210 @@ import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
 import com.github.tetrisanalyzer.piecemove.PieceMove;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Takes a list of piece moves and evaluates them using the given board evaluator.
+ *
+ * The search makes and unmakes the moves on one copy of the board (one per thread
+ * when searching in parallel) instead of copying the board for every move.
+ *
+ * If a transposition table is given, already evaluated positions are looked up
+ * in the table instead of being evaluated again.
+ *
+ * If a fork join pool is given, the moves of a node and the seven pieces of an unknown
+ * next piece are evaluated in parallel, as long as the node has at least 'parallelThreshold'
+ * levels left to evaluate. The equities are collected in the same order as in the sequential
+ * search, so the same move is selected (also when two moves have the same equity).
+ *
+ * The valid moves are calculated by one reused ValidMoves per thread and search level, so that
+ * the move generation doesn't allocate anything while searching.
+ *
+ * If the board evaluator is an IncrementalBoardEvaluator and the board has no column masks
+ * (64 rows or more, see Board.hasColumns), the leaves are evaluated incrementally from the features
+ * of the board before the last move, which are calculated once per node whose moves lead to leaves.
+ * On such boards the full outline is calculated row by row, and IncrementalEvaluationBenchmark
+ * measured the incremental evaluation 2-3 times faster. On lower boards it was slower.
+ * The evaluation cache and the specialized evaluator are IncrementalBoardEvaluators when the evaluator
+ * they wrap is one (see CachingBoardEvaluator.create and SpecializedTengstrandBoardEvaluator141).
  */
 public class PositionEvaluator {
+    private final AllValidPieceMoves allValidPieceMoves;
+    private final Piece[] pieces;
+    private final BoardEvaluator boardEvaluator;
+    private final IncrementalBoardEvaluator incrementalEvaluator;
+    private final TranspositionTable transpositionTable;
+    private final ForkJoinPool forkJoinPool;
+    private final int parallelThreshold;
+    private final ThreadLocal<ValidMoves[]> validMovesPerLevel = new ThreadLocal<>();
+    private final ThreadLocal<EvaluationState> parentStates = ThreadLocal.withInitial(EvaluationState::new);
+    private final ThreadLocal<EvaluationState> leafStates = ThreadLocal.withInitial(EvaluationState::new);
+
+    public PositionEvaluator(AllValidPieceMoves allValidPieceMoves, Piece[] pieces, BoardEvaluator boardEvaluator) {
+        this(allValidPieceMoves, pieces, boardEvaluator, null);
+    }
+
+    public PositionEvaluator(AllValidPieceMoves allValidPieceMoves, Piece[] pieces, BoardEvaluator boardEvaluator,
+                             TranspositionTable transpositionTable) {
+        this(allValidPieceMoves, pieces, boardEvaluator, transpositionTable, null, 0);
+    }
+
+    public PositionEvaluator(AllValidPieceMoves allValidPieceMoves, Piece[] pieces, BoardEvaluator boardEvaluator,
+                             TranspositionTable transpositionTable, ForkJoinPool forkJoinPool, int parallelThreshold) {
+        this.allValidPieceMoves = allValidPieceMoves;
+        this.pieces = pieces;
+        this.boardEvaluator = boardEvaluator;
+        this.incrementalEvaluator = boardEvaluator instanceof IncrementalBoardEvaluator ? (IncrementalBoardEvaluator)boardEvaluator : null;
+        this.transpositionTable = transpositionTable;
+        this.forkJoinPool = forkJoinPool;
+        this.parallelThreshold = parallelThreshold;
+    }
 
     public static MoveEquity bestMove(AllValidPieceMoves allValidPieceMoves, Piece[] pieces, BoardEvaluator boardEvaluator, Board board, NextPieces nextPieces) {
-        return bestMove(evaluate(allValidPieceMoves, pieces, boardEvaluator, board, nextPieces));
+        return new PositionEvaluator(allValidPieceMoves, pieces, boardEvaluator).bestMove(board, nextPieces);
     }
 
     public static List<MoveEquity> evaluate(AllValidPieceMoves allValidPieceMoves, Piece[] pieces, BoardEvaluator boardEvaluator, Board board, NextPieces nextPieces) {
+        return new PositionEvaluator(allValidPieceMoves, pieces, boardEvaluator).evaluate(board, nextPieces);
+    }
+
+    public static double evaluate(BoardEvaluator boardEvaluator, PieceMove pieceMove, Board board, AllValidPieceMoves allValidPieceMoves, Piece[] pieces, NextPieces nextPieces, double maxEquity) {
+        return new PositionEvaluator(allValidPieceMoves, pieces, boardEvaluator).evaluate(pieceMove, board, nextPieces, maxEquity);
+    }
+
+    public MoveEquity bestMove(Board board, NextPieces nextPieces) {
+        return bestMove(evaluate(board, nextPieces));
+    }
+
+    public List<MoveEquity> evaluate(Board board, NextPieces nextPieces) {
+        return evaluateMoves(board.copy(), nextPieces);
+    }
+
+    /**
+     * Evaluates the valid moves on the search board, which is left unchanged when done.
+     */
+    private List<MoveEquity> evaluateMoves(Board board, NextPieces nextPieces) {
         PieceMove startPieceMove = allValidPieceMoves.startMoveForPiece(nextPieces.piece());
-        List<PieceMove> validMoves = new ValidMoves(board).pieceMoves(startPieceMove, board);
+        List<PieceMove> validMoves = validMoves(nextPieces.level).pieceMoves(startPieceMove.moveGraph(), board);
 
         List<MoveEquity> moves = new ArrayList<>(validMoves.size());
 
+        if (isParallel(nextPieces)) {
+            // While waiting for the tasks, this thread can run other tasks that reuse the list (and the parent state).
+            validMoves = new ArrayList<>(validMoves);
+            EvaluationState parent = parentState(board, nextPieces, true);
+            List<ForkJoinTask<Double>> tasks = new ArrayList<>(validMoves.size());
+            for (PieceMove pieceMove : validMoves) {
+                tasks.add(ForkJoinTask.adapt(() -> evaluateMove(pieceMove, board.copy(), nextPieces.nextLevel(), boardEvaluator.maxEquity(), parent)));
+            }
+            invokeAll(tasks);
+
+            for (int i=0; i<validMoves.size(); i++) {
+                moves.add(new MoveEquity(validMoves.get(i), tasks.get(i).join()));
+            }
+            return moves;
+        }
+
+        EvaluationState parent = parentState(board, nextPieces, false);
         for (PieceMove pieceMove : validMoves) {
-            moves.add(new MoveEquity(pieceMove, evaluate(boardEvaluator, pieceMove, board, allValidPieceMoves, pieces, nextPieces.nextLevel(), boardEvaluator.maxEquity())));
+            moves.add(new MoveEquity(pieceMove, evaluateMove(pieceMove, board, nextPieces.nextLevel(), boardEvaluator.maxEquity(), parent)));
         }
         return moves;
     }
 
-    public static double evaluate(BoardEvaluator boardEvaluator, PieceMove pieceMove, Board board, AllValidPieceMoves allValidPieceMoves, Piece[] pieces, NextPieces nextPieces, double maxEquity) {
-        Board boardCopy = board.copy();
-        pieceMove.setPiece(boardCopy);
+    /**
+     * If the moves lead to leaves that are evaluated incrementally, returns the features of the board, otherwise null.
+     * The moves of a parallel node get their own state, the others reuse the state of the current thread.
+     */
+    private EvaluationState parentState(Board board, NextPieces nextPieces, boolean parallel) {
+        if (incrementalEvaluator == null || nextPieces.level != 1 || board.hasColumns()) {
+            return null;
+        }
+        EvaluationState state = parallel ? new EvaluationState() : parentStates.get();
+        incrementalEvaluator.evaluate(board, allValidPieceMoves, state);
+        return state;
+    }
 
+    /**
+     * Returns the move generator of the current thread for the given search level.
+     */
+    private ValidMoves validMoves(int level) {
+        ValidMoves[] validMoves = validMovesPerLevel.get();
+
+        if (validMoves == null || validMoves.length <= level) {
+            validMoves = validMoves == null ? new ValidMoves[level + 1] : Arrays.copyOf(validMoves, level + 1);
+            validMovesPerLevel.set(validMoves);
+        }
+        if (validMoves[level] == null) {
+            validMoves[level] = new ValidMoves();
+        }
+        return validMoves[level];
+    }
+
+    private boolean isParallel(NextPieces nextPieces) {
+        return forkJoinPool != null && nextPieces.level >= parallelThreshold;
+    }
+
+    /**
+     * Runs the tasks in the fork join pool and waits until all of them are done.
+     */
+    private <T> void invokeAll(List<ForkJoinTask<T>> tasks) {
+        if (ForkJoinTask.getPool() == forkJoinPool) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            forkJoinPool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        }
+    }
+
+    /**
+     * Places the piece on a copy of the board and returns the equity of the resulting position.
+     */
+    public double evaluate(PieceMove pieceMove, Board board, NextPieces nextPieces, double maxEquity) {
+        return evaluateMove(pieceMove, board.copy(), nextPieces, maxEquity, null);
+    }
+
+    /**
+     * Makes the move on the search board, evaluates the resulting position and unmakes the move.
+     * If 'parent' is not null, it holds the features of the board before the move (see parentState).
+     */
+    private double evaluateMove(PieceMove pieceMove, Board board, NextPieces nextPieces, double maxEquity, EvaluationState parent) {
+        int clearedRows = pieceMove.makeMove(board);
+        double equity;
+
+        if (transpositionTable == null) {
+            equity = evaluatePosition(board, nextPieces, maxEquity, pieceMove, clearedRows, parent);
+        } else {
+            long key = transpositionTable.positionKey(board, nextPieces);
+            equity = transpositionTable.get(key);
+
+            if (Double.isNaN(equity)) {
+                equity = evaluatePosition(board, nextPieces, maxEquity, pieceMove, clearedRows, parent);
+                transpositionTable.put(key, equity);
+            }
+        }
+        pieceMove.unmakeMove(board);
+
+        return equity;
+    }
+
+    private double evaluatePosition(Board board, NextPieces nextPieces, double maxEquity,
+                                    PieceMove pieceMove, int clearedRows, EvaluationState parent) {
         if (nextPieces.level == 0) {
-            return boardEvaluator.evaluate(boardCopy, allValidPieceMoves);
+            if (parent != null) {
+                return incrementalEvaluator.evaluate(board, allValidPieceMoves, parent, pieceMove, clearedRows, leafStates.get());
+            }
+            return boardEvaluator.evaluate(board, allValidPieceMoves);
         }
         if (nextPieces.isUnknown()) {
+            if (isParallel(nextPieces)) {
+                return evaluateUnknownPieceInParallel(board, nextPieces, maxEquity);
+            }
             double equity = 0;
             for (Piece piece : pieces) {
-                MoveEquity bestMove = bestMove(allValidPieceMoves, pieces, boardEvaluator, boardCopy, nextPieces.current(piece));
+                MoveEquity bestMove = bestMove(evaluateMoves(board, nextPieces.current(piece)));
                 if (bestMove == null) {
                     equity += maxEquity;
                 } else {
@@ -52,11 +224,31 @@ public class PositionEvaluator {
             return equity / pieces.length;
         }
 
-        MoveEquity bestMove = bestMove(allValidPieceMoves, pieces, boardEvaluator, boardCopy, nextPieces);
+        MoveEquity bestMove = bestMove(evaluateMoves(board, nextPieces));
 
         return bestMove == null ? maxEquity : bestMove.equity;
     }
 
+    private double evaluateUnknownPieceInParallel(Board board, NextPieces nextPieces, double maxEquity) {
+        List<ForkJoinTask<MoveEquity>> tasks = new ArrayList<>(pieces.length);
+        for (Piece piece : pieces) {
+            tasks.add(ForkJoinTask.adapt(() -> bestMove(evaluateMoves(board.copy(), nextPieces.current(piece)))));
+        }
+        invokeAll(tasks);
+
+        // Sum in the same order as the sequential version to get exactly the same equity.
+        double equity = 0;
+        for (ForkJoinTask<MoveEquity> task : tasks) {
+            MoveEquity bestMove = task.join();
+            if (bestMove == null) {
+                equity += maxEquity;
+            } else {
+                equity += bestMove.equity;
+            }
+        }
+        return equity / pieces.length;
+    }
+
     /**
      * Returns the move (if any) that is ranked as number one.
      */
@@ -0,0 +1,182 @@
+package com.github.tetrisanalyzer.game;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.piece.Piece;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of already evaluated positions, used by the lookahead search so that
+ * a board that is reached through a different move order is not evaluated again.
+ *
+ * A position is identified by a 64 bit key, calculated from the Zobrist hash of the board,
+ * the remaining depth and the known pieces. If the table is created with mirror symmetry, a position
+ * and its mirror image (the board mirrored left to right and S/Z and L/J swapped in the known pieces)
+ * get the same key and share the entry. That only gives the right equities if both the board evaluator
+ * and the moves of the rules are left/right symmetric (see BoardEvaluator.isMirrorSymmetric and
+ * AllValidPieceMoves.isMirrorSymmetric), which Game checks before using it.
+ * The entries are stored in buckets of four slots
+ * and when a bucket is full, the clock (second chance) algorithm selects the slot to replace.
+ *
+ * The table can be shared by the threads of a parallel search without locking. Each slot stores
+ * the key XOR:ed with the bits of the equity, so if two threads write the same slot at the same
+ * time and the key and equity end up from different writes, the slot is treated as a miss.
+ */
+public class TranspositionTable {
+    private static final int BUCKET_SIZE = 4;
+    private static final long EMPTY = 0;
+
+    public static final double NOT_FOUND = Double.NaN;
+
+    private final boolean mirrorSymmetry;
+    private final int mask;
+    private final long[] keys;
+    private final double[] equities;
+    private final boolean[] referenced;
+    private final byte[] clockHands;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TranspositionTable(int size) {
+        this(size, false);
+    }
+
+    public TranspositionTable(int size, boolean mirrorSymmetry) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The size of the transposition table must be positive, but was: " + size);
+        }
+        this.mirrorSymmetry = mirrorSymmetry;
+        int capacity = capacity(size);
+        mask = capacity - 1;
+        keys = new long[capacity];
+        equities = new double[capacity];
+        referenced = new boolean[capacity];
+        clockHands = new byte[capacity / BUCKET_SIZE];
+    }
+
+    private static int capacity(int size) {
+        int capacity = BUCKET_SIZE;
+        while (capacity < size && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Calculates the key of a position where the piece has already been placed on the board
+     * and 'nextPieces' holds what is left to evaluate (remaining depth and known pieces).
+     */
+    public static long key(Board board, NextPieces nextPieces) {
+        return key(board.hash(), nextPieces, false);
+    }
+
+    /**
+     * Calculates the smallest of the keys of a position and of its mirror image,
+     * which is the same for a position and its mirror image.
+     */
+    public static long symmetricKey(Board board, NextPieces nextPieces) {
+        return Math.min(key(board.hash(), nextPieces, false), key(board.mirroredHash(), nextPieces, true));
+    }
+
+    private static long key(long boardHash, NextPieces nextPieces, boolean mirrored) {
+        long key = boardHash ^ mix(((long)nextPieces.level << 32) | nextPieces.knownPieces);
+
+        for (int i=0; i<nextPieces.knownPieces && i<nextPieces.pieces.size(); i++) {
+            int piece = nextPieces.pieces.get(i).number();
+            key ^= mix(((long)(i + 1) << 8) | (mirrored ? Piece.mirroredNumber(piece) : piece));
+        }
+        return key == EMPTY ? 1 : key;
+    }
+
+    /**
+     * Calculates the key of a position in this table, see key and symmetricKey.
+     */
+    public long positionKey(Board board, NextPieces nextPieces) {
+        return mirrorSymmetry ? symmetricKey(board, nextPieces) : key(board, nextPieces);
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private int bucket(long key) {
+        return (int)key & mask & -BUCKET_SIZE;
+    }
+
+    /**
+     * Returns the stored equity for the key, or NOT_FOUND (NaN) if missing.
+     */
+    public double get(long key) {
+        int bucket = bucket(key);
+
+        for (int i=bucket; i<bucket + BUCKET_SIZE; i++) {
+            double equity = equities[i];
+            if (storedKey(i, equity) == key) {
+                referenced[i] = true;
+                hits.increment();
+                return equity;
+            }
+        }
+        misses.increment();
+        return NOT_FOUND;
+    }
+
+    private long storedKey(int index, double equity) {
+        return keys[index] ^ Double.doubleToRawLongBits(equity);
+    }
+
+    public void put(long key, double equity) {
+        int bucket = bucket(key);
+
+        for (int i=bucket; i<bucket + BUCKET_SIZE; i++) {
+            long storedKey = storedKey(i, equities[i]);
+            if (storedKey == key || storedKey == EMPTY) {
+                store(i, key, equity);
+                return;
+            }
+        }
+        int clock = bucket / BUCKET_SIZE;
+        int hand = clockHands[clock] & (BUCKET_SIZE - 1);
+
+        // Bounded, so that other threads that keep referencing the bucket can't stop us.
+        for (int i=0; i<BUCKET_SIZE && referenced[bucket + hand]; i++) {
+            referenced[bucket + hand] = false;
+            hand = (hand + 1) & (BUCKET_SIZE - 1);
+        }
+        store(bucket + hand, key, equity);
+        clockHands[clock] = (byte)((hand + 1) & (BUCKET_SIZE - 1));
+    }
+
+    private void store(int index, long key, double equity) {
+        keys[index] = key ^ Double.doubleToRawLongBits(equity);
+        equities[index] = equity;
+        referenced[index] = false;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long hits = hits();
+        long lookups = hits + misses();
+        return lookups == 0 ? 0 : (double)hits / lookups;
+    }
+
+    public String hitRateFormatted() {
+        return String.format(Locale.ENGLISH, "%.1f%%", hitRate() * 100);
+    }
+}
@@ -7,6 +7,7 @@ import com.github.tetrisanalyzer.game.Game;
 import com.github.tetrisanalyzer.gui.graph.AreasGraph;
 import com.github.tetrisanalyzer.gui.graph.DistributionGraph;
 import com.github.tetrisanalyzer.gui.graph.Graph;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMovesCache;
 import com.github.tetrisanalyzer.settings.RaceGameSettings;
 import com.github.tetrisanalyzer.settings.RaceGamesSettings;
 import com.github.tetrisanalyzer.settings.RaceSettings;
@@ -389,6 +390,7 @@ public class TetrisAnalyzer extends JPanel implements KeyListener {
 
     private void reloadGames(boolean showAll) {
         SystemSettings systemSettings = SystemSettings.fromFile(systemFilename);
+        AllValidPieceMovesCache.setDirectory(systemSettings.moveGraphDirectory);
         race = RaceSettings.fromFile(raceFilename, systemSettings, showAll);
         games = race.games;
         raceInfo = new RaceInfo(race);
@@ -1,38 +1,62 @@
 package com.github.tetrisanalyzer.move;
 
 import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.piecemove.MoveGraph;
 import com.github.tetrisanalyzer.piecemove.PieceMove;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Calculates the valid moves of a piece on a board by walking the nodes of its MoveGraph.
+ *
+ * An instance can be reused for any number of calls to pieceMoves, which then allocates
+ * nothing once the arrays and the result list have grown to their largest size. Instead of
+ * clearing the visited nodes between the calls, each call gets a new generation number and
+ * a node counts as visited only if it is stamped with the current generation.
+ *
+ * The nodes are traversed depth first with an explicit stack (instead of recursion),
+ * so that high and wide boards can't cause a StackOverflowError.
+ *
+ * If sliding is off (see MoveGraph.hasHardDrops), only the first row is traversed and the landing
+ * position of each reachable first row move is calculated from the columns of the board,
+ * instead of moving the piece down one row at a time.
+ *
+ * Not thread safe, use one instance per thread (and per search level, see pieceMoves).
+ */
 public class ValidMoves {
     private final List<PieceMove> validMoves = new ArrayList<PieceMove>();
-    private final int[][] visitedMoves;
+    private int[] visitedNodes = new int[0];
+    private int generation;
 
-    public ValidMoves(Board board) {
-        visitedMoves = emptyVisitedMoves(board.height, board.width);
+    // The traversal stack: the nodes and the index of their next adjacent node.
+    private int[] stackNodes = new int[64];
+    private int[] stackIndices = new int[64];
+    private int stackSize;
+    private int maxStackSize;
+
+    public ValidMoves() {
     }
 
-    private int[][] emptyVisitedMoves(int height, int width) {
-        int[][] visitedMoves = new int[height][];
-        for (int h=0; h<height; h++) {
-            visitedMoves[h] = new int[width];
-            Arrays.fill(visitedMoves[h], 0);
-        }
-        return visitedMoves;
+    private void markAsVisited(int node) {
+        visitedNodes[node] = generation;
     }
 
-    private void markAsVisited(Move move) {
-        visitedMoves[move.y][move.x] |= 1 << move.rotation;
+    private boolean isUnvisited(int node) {
+        return visitedNodes[node] != generation;
     }
 
-    private boolean isUnvisited(Move move) {
-        try {
-            return (visitedMoves[move.y][move.x] & (1 << move.rotation)) == 0;
-        } catch(IndexOutOfBoundsException e) {
-            return false;
+    private void nextGeneration(MoveGraph moveGraph) {
+        if (visitedNodes.length < moveGraph.size()) {
+            visitedNodes = new int[moveGraph.size()];
+            generation = 0;
+        }
+        generation++;
+
+        if (generation == 0) {
+            Arrays.fill(visitedNodes, 0);
+            generation = 1;
         }
     }
 
@@ -40,20 +64,116 @@ public class ValidMoves {
      * The incoming pieceMove is at the starting position of the board, and
      * links to all possible moves on an empty board. Because the board is probably not empty,
      * every possible move needs to be checked (and returned by this method).
+     *
+     * The returned list is reused, so it is only valid until the next call.
      */
     public List<PieceMove> pieceMoves(PieceMove pieceMove, Board board) {
-        if (isUnvisited(pieceMove.move) && pieceMove.isFree(board)) {
-            markAsVisited(pieceMove.move);
+        return pieceMoves(pieceMove.moveGraph(), board);
+    }
+
+    /**
+     * Returns the valid moves, starting from node 0 (the starting position) of the move graph.
+     *
+     * The returned list is reused, so it is only valid until the next call.
+     */
+    public List<PieceMove> pieceMoves(MoveGraph moveGraph, Board board) {
+        if (moveGraph.hasHardDrops() && board.hasColumns()) {
+            return pieceMovesByHardDrop(moveGraph, board);
+        }
+        return pieceMovesByTraversal(moveGraph, board);
+    }
+
+    /**
+     * Returns the valid moves by traversing the whole move graph.
+     *
+     * The returned list is reused, so it is only valid until the next call.
+     */
+    public List<PieceMove> pieceMovesByTraversal(MoveGraph moveGraph, Board board) {
+        validMoves.clear();
+        nextGeneration(moveGraph);
+        visit(moveGraph, 0, board);
+
+        // Visits the nodes in the same order as a recursive traversal that first visits
+        // the adjacent (aside and rotate) nodes and then the node below
+        // (or adds the move if it can't move down).
+        while (stackSize > 0) {
+            int top = stackSize - 1;
+            int node = stackNodes[top];
+            int index = stackIndices[top];
 
-            for (PieceMove move: pieceMove.asideAndRotate) {
-                pieceMoves(move, board);
+            if (index < moveGraph.adjacentEnd(node)) {
+                stackIndices[top] = index + 1;
+                visit(moveGraph, moveGraph.adjacentNode(index), board);
+            } else {
+                stackSize--;
+                int down = moveGraph.down(node);
+
+                if (down >= 0 && moveGraph.isFree(down, board)) {
+                    if (isUnvisited(down)) {
+                        markAsVisited(down);
+                        push(moveGraph, down);
+                    }
+                } else {
+                    validMoves.add(moveGraph.pieceMove(node));
+                }
             }
-            if (pieceMove.canMoveDown(board)) {
-                pieceMoves(pieceMove.down, board);
+        }
+        return validMoves;
+    }
+
+    /**
+     * Returns the valid moves by traversing the first row of the move graph and dropping the piece
+     * from each reached move. The moves are returned in the same order as by pieceMovesByTraversal.
+     * Can only be called if moveGraph.hasHardDrops() and board.hasColumns() are true.
+     *
+     * The returned list is reused, so it is only valid until the next call.
+     */
+    public List<PieceMove> pieceMovesByHardDrop(MoveGraph moveGraph, Board board) {
+        validMoves.clear();
+        nextGeneration(moveGraph);
+        visit(moveGraph, 0, board);
+
+        while (stackSize > 0) {
+            int top = stackSize - 1;
+            int node = stackNodes[top];
+            int index = stackIndices[top];
+
+            if (index < moveGraph.adjacentEnd(node)) {
+                stackIndices[top] = index + 1;
+                visit(moveGraph, moveGraph.adjacentNode(index), board);
             } else {
-                validMoves.add(pieceMove);
+                stackSize--;
+                validMoves.add(moveGraph.pieceMove(moveGraph.hardDropNode(node, board)));
             }
         }
         return validMoves;
     }
+
+    private void visit(MoveGraph moveGraph, int node, Board board) {
+        if (isUnvisited(node) && moveGraph.isFree(node, board)) {
+            markAsVisited(node);
+            push(moveGraph, node);
+        }
+    }
+
+    private void push(MoveGraph moveGraph, int node) {
+        if (stackSize == stackNodes.length) {
+            stackNodes = Arrays.copyOf(stackNodes, stackSize * 2);
+            stackIndices = Arrays.copyOf(stackIndices, stackSize * 2);
+        }
+        stackNodes[stackSize] = node;
+        stackIndices[stackSize] = moveGraph.adjacentStart(node);
+        stackSize++;
+
+        if (stackSize > maxStackSize) {
+            maxStackSize = stackSize;
+        }
+    }
+
+    /**
+     * The largest number of moves that has been on the traversal stack at the same time.
+     */
+    public int maxStackSize() {
+        return maxStackSize;
+    }
 }
@@ -80,6 +80,20 @@ public abstract class Piece {
         return indexMap.get(piece);
     }
 
+    /**
+     * Returns the number of the piece that has the mirrored shape of the piece with the given number:
+     * S and Z, and L and J, are each other's mirror images and the other pieces are their own.
+     */
+    public static int mirroredNumber(int number) {
+        switch (number) {
+            case S: return Z;
+            case Z: return S;
+            case L: return J;
+            case J: return L;
+            default: return number;
+        }
+    }
+
     public Piece(PieceSettings settings) {
         adjustments = settings.pieceAdjustments[number()];
     }
@@ -11,23 +11,68 @@ import static com.github.tetrisanalyzer.piece.Piece.*;
 
 /**
  * Is a holder for all valid moves on an empty board.
+ *
+ * The rows that the start moves cover (the spawn rows) are stored as masks, the cells of all start moves
+ * per row in 'spawnCells' and the cells of start move p per row in 'startMoveCells[row * 7 + p]',
+ * so that the number of occupied start moves is calculated from the spawn rows with a few
+ * bit operations (see adjustEquityIfOccupiedStartPiece).
  */
 public class AllValidPieceMoves {
     private final Map<Piece, PieceMove> startPieces = new HashMap<Piece, PieceMove>();
     private final PieceMove[] pieceMoves = new PieceMove[7];
+    private final int spawnY;
+    private final long[] spawnCells;
+    private final long[] startMoveCells;
 
     public AllValidPieceMoves(Board board, GameSettings settings) {
         this(board.width, board.height, settings);
     }
 
     public AllValidPieceMoves(int boardWidth, int boardHeight, GameSettings settings) {
-        startPieces.put(createPieceO(settings), pieceMoves[0] = new ValidPieceMoves(boardWidth, boardHeight, createPieceO(settings), settings).calculateStartMove(boardWidth, boardHeight));
-        startPieces.put(createPieceI(settings), pieceMoves[1] = new ValidPieceMoves(boardWidth, boardHeight, createPieceI(settings), settings).calculateStartMove(boardWidth, boardHeight));
-        startPieces.put(createPieceS(settings), pieceMoves[2] = new ValidPieceMoves(boardWidth, boardHeight, createPieceS(settings), settings).calculateStartMove(boardWidth, boardHeight));
-        startPieces.put(createPieceZ(settings), pieceMoves[3] = new ValidPieceMoves(boardWidth, boardHeight, createPieceZ(settings), settings).calculateStartMove(boardWidth, boardHeight));
-        startPieces.put(createPieceL(settings), pieceMoves[4] = new ValidPieceMoves(boardWidth, boardHeight, createPieceL(settings), settings).calculateStartMove(boardWidth, boardHeight));
-        startPieces.put(createPieceJ(settings), pieceMoves[5] = new ValidPieceMoves(boardWidth, boardHeight, createPieceJ(settings), settings).calculateStartMove(boardWidth, boardHeight));
-        startPieces.put(createPieceT(settings), pieceMoves[6] = new ValidPieceMoves(boardWidth, boardHeight, createPieceT(settings), settings).calculateStartMove(boardWidth, boardHeight));
+        this(new PieceMove[] {
+                new ValidPieceMoves(boardWidth, boardHeight, createPieceO(settings), settings).calculateStartMove(boardWidth, boardHeight),
+                new ValidPieceMoves(boardWidth, boardHeight, createPieceI(settings), settings).calculateStartMove(boardWidth, boardHeight),
+                new ValidPieceMoves(boardWidth, boardHeight, createPieceS(settings), settings).calculateStartMove(boardWidth, boardHeight),
+                new ValidPieceMoves(boardWidth, boardHeight, createPieceZ(settings), settings).calculateStartMove(boardWidth, boardHeight),
+                new ValidPieceMoves(boardWidth, boardHeight, createPieceL(settings), settings).calculateStartMove(boardWidth, boardHeight),
+                new ValidPieceMoves(boardWidth, boardHeight, createPieceJ(settings), settings).calculateStartMove(boardWidth, boardHeight),
+                new ValidPieceMoves(boardWidth, boardHeight, createPieceT(settings), settings).calculateStartMove(boardWidth, boardHeight)
+        });
+    }
+
+    /**
+     * Creates the holder from the start moves of the pieces O, I, S, Z, L, J and T (in that order).
+     */
+    AllValidPieceMoves(PieceMove[] startMoves) {
+        for (int p=0; p<7; p++) {
+            pieceMoves[p] = startMoves[p];
+            startPieces.put(startMoves[p].piece, startMoves[p]);
+        }
+        // Created here, so that the move graphs are ready before they are shared by the search threads.
+        for (PieceMove pieceMove : pieceMoves) {
+            pieceMove.moveGraph();
+        }
+        int minY = Integer.MAX_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (PieceMove pieceMove : pieceMoves) {
+            minY = Math.min(minY, pieceMove.move.y);
+            maxY = Math.max(maxY, pieceMove.move.y + pieceMove.pieceHeight - 1);
+        }
+        spawnY = minY;
+        spawnCells = new long[maxY - minY + 1];
+        startMoveCells = new long[spawnCells.length * 7];
+
+        for (int p=0; p<7; p++) {
+            for (int y=0; y<pieceMoves[p].pieceHeight; y++) {
+                int row = pieceMoves[p].move.y + y - spawnY;
+                spawnCells[row] |= pieceMoves[p].orLines[y];
+                startMoveCells[row * 7 + p] |= pieceMoves[p].orLines[y];
+            }
+        }
+    }
+
+    PieceMove startMove(int p) {
+        return pieceMoves[p];
     }
 
     public PieceMove startMoveForPiece(Piece piece) {
@@ -37,17 +82,44 @@ public class AllValidPieceMoves {
         return startPieces.get(piece);
     }
 
+    /**
+     * True if the moves are left/right symmetric on a board with the given width: the move graph of each piece,
+     * mirrored, is the move graph of the piece with the mirrored shape (see MoveGraph.isMirrorOf).
+     * The valid moves and the occupied start moves of a board are then the mirror images of those of
+     * the mirrored board, with S/Z and L/J swapped.
+     */
+    public boolean isMirrorSymmetric(int boardWidth) {
+        for (PieceMove pieceMove : pieceMoves) {
+            int mirroredNumber = Piece.mirroredNumber(pieceMove.piece.number());
+            for (PieceMove mirroredMove : pieceMoves) {
+                if (mirroredMove.piece.number() == mirroredNumber &&
+                        !pieceMove.moveGraph().isMirrorOf(mirroredMove.moveGraph(), boardWidth)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     public double adjustEquityIfOccupiedStartPiece(double equity, double maxEquity, Board board) {
-        int cnt = 0;
+        // Bit p is set if start move p is occupied.
+        int occupiedStartMoves = 0;
 
-        for (int p=0; p<7; p++) {
-            if (!pieceMoves[p].isFree(board)) {
-                cnt++;
+        for (int row=0; row<spawnCells.length; row++) {
+            long cells = board.rowCells(spawnY + row) & spawnCells[row];
+
+            if (cells != 0) {
+                for (int p=0; p<7; p++) {
+                    if ((cells & startMoveCells[row * 7 + p]) != 0) {
+                        occupiedStartMoves |= 1 << p;
+                    }
+                }
             }
         }
-        if (cnt == 0) {
+        if (occupiedStartMoves == 0) {
             return equity;
         }
+        int cnt = Integer.bitCount(occupiedStartMoves);
         if (cnt == 7) {
             return maxEquity;
         }
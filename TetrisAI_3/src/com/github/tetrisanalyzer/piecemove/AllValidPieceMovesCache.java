@@ -0,0 +1,250 @@
+package com.github.tetrisanalyzer.piecemove;
+
+import com.github.tetrisanalyzer.move.Move;
+import com.github.tetrisanalyzer.piece.Piece;
+import com.github.tetrisanalyzer.settings.GameSettings;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.github.tetrisanalyzer.piece.Piece.*;
+
+/**
+ * A process wide cache of the valid moves on an empty board, shared by all games (and restarted races)
+ * with the same board size and Tetris rules. The moves are never changed after they are created,
+ * so they can be used by several games (threads) at the same time.
+ *
+ * The key includes everything in the rules that the moves depend on, not only the id of the rules,
+ * because the same rules can be used with e.g. sliding turned on or off.
+ *
+ * If a directory is set (system setting "move graph directory"), the moves of boards with at least
+ * MIN_CELLS_TO_STORE cells are also stored on disk and read from there the next time the program starts,
+ * because on large boards it's faster to read the move graphs than to calculate them.
+ */
+public class AllValidPieceMovesCache {
+    public static final int MIN_CELLS_TO_STORE = 1024;
+
+    private static final int FILE_VERSION = 1;
+
+    private static final Map<Key, AllValidPieceMoves> cache = new ConcurrentHashMap<>();
+    private static volatile File directory;
+
+    public static AllValidPieceMoves get(int boardWidth, int boardHeight, GameSettings settings) {
+        return cache.computeIfAbsent(new Key(boardWidth, boardHeight, settings), key -> create(key, settings));
+    }
+
+    /**
+     * Sets the directory where the moves of large boards are stored, or turns it off if null.
+     */
+    public static void setDirectory(String directory) {
+        if (directory == null) {
+            AllValidPieceMovesCache.directory = null;
+            return;
+        }
+        File dir = new File(directory);
+        if (!dir.isDirectory()) {
+            throw new IllegalArgumentException("The 'move graph directory' must be an existing directory, but was: " + directory);
+        }
+        AllValidPieceMovesCache.directory = dir;
+    }
+
+    /**
+     * Removes all moves from memory (but not from disk).
+     */
+    public static void clear() {
+        cache.clear();
+    }
+
+    private static AllValidPieceMoves create(Key key, GameSettings settings) {
+        File file = file(key);
+        if (file == null) {
+            return new AllValidPieceMoves(key.boardWidth, key.boardHeight, settings);
+        }
+        AllValidPieceMoves allValidPieceMoves = read(file, key, settings);
+
+        if (allValidPieceMoves == null) {
+            allValidPieceMoves = new AllValidPieceMoves(key.boardWidth, key.boardHeight, settings);
+            write(file, key, allValidPieceMoves);
+        }
+        return allValidPieceMoves;
+    }
+
+    private static File file(Key key) {
+        File dir = directory;
+        if (dir == null || key.boardWidth * key.boardHeight < MIN_CELLS_TO_STORE) {
+            return null;
+        }
+        String id = key.settingsId.replaceAll("[^A-Za-z0-9]", "_");
+        return new File(dir, String.format("moves-%s-%dx%d-%08x.bin", id, key.boardWidth, key.boardHeight, key.hashCode()));
+    }
+
+    private static Piece[] pieces(GameSettings settings) {
+        return new Piece[] { createPieceO(settings), createPieceI(settings), createPieceS(settings),
+                createPieceZ(settings), createPieceL(settings), createPieceJ(settings), createPieceT(settings) };
+    }
+
+    /**
+     * Writes, for each piece, the nodes of the move graph: the move, the node below and the adjacent nodes.
+     */
+    private static void write(File file, Key key, AllValidPieceMoves allValidPieceMoves) {
+        File tempFile = new File(file.getPath() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(FILE_VERSION);
+            out.writeUTF(key.toString());
+
+            for (int p=0; p<7; p++) {
+                MoveGraph moveGraph = allValidPieceMoves.startMove(p).moveGraph();
+                out.writeInt(moveGraph.size());
+
+                for (int node=0; node<moveGraph.size(); node++) {
+                    Move move = moveGraph.pieceMove(node).move;
+                    out.writeInt(move.rotation);
+                    out.writeInt(move.x);
+                    out.writeInt(move.y);
+                    out.writeInt(moveGraph.down(node));
+                    out.writeInt(moveGraph.adjacentEnd(node) - moveGraph.adjacentStart(node));
+
+                    for (int i=moveGraph.adjacentStart(node); i<moveGraph.adjacentEnd(node); i++) {
+                        out.writeInt(moveGraph.adjacentNode(i));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write the move graphs to: " + tempFile, e);
+        }
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not move the move graphs to: " + file, e);
+        }
+    }
+
+    /**
+     * Returns the moves stored in the file, or null if missing or if stored for other settings or by another version.
+     */
+    private static AllValidPieceMoves read(File file, Key key, GameSettings settings) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_VERSION || !in.readUTF().equals(key.toString())) {
+                return null;
+            }
+            Piece[] pieces = pieces(settings);
+            PieceMove[] startMoves = new PieceMove[7];
+
+            for (int p=0; p<7; p++) {
+                int size = in.readInt();
+                PieceMove[] pieceMoves = new PieceMove[size];
+                int[] down = new int[size];
+                int[][] adjacentNodes = new int[size][];
+
+                for (int node=0; node<size; node++) {
+                    int rotation = in.readInt();
+                    int x = in.readInt();
+                    int y = in.readInt();
+                    pieceMoves[node] = new PieceMove(pieces[p], new Move(rotation, x, y));
+                    down[node] = in.readInt();
+                    adjacentNodes[node] = new int[in.readInt()];
+
+                    for (int i=0; i<adjacentNodes[node].length; i++) {
+                        adjacentNodes[node][i] = in.readInt();
+                    }
+                }
+                for (int node=0; node<size; node++) {
+                    if (down[node] >= 0) {
+                        pieceMoves[node].setDown(pieceMoves[down[node]]);
+                    }
+                    for (int adjacentNode : adjacentNodes[node]) {
+                        pieceMoves[node].addPieceMove(pieceMoves[adjacentNode]);
+                    }
+                }
+                startMoves[p] = pieceMoves[0];
+            }
+            return new AllValidPieceMoves(startMoves);
+        } catch (IOException | RuntimeException e) {
+            // A damaged file is replaced by recalculating the moves.
+            return null;
+        }
+    }
+
+    private static class Key {
+        private final int boardWidth;
+        private final int boardHeight;
+        private final String settingsId;
+        private final boolean slidingOn;
+        private final String rotationDirection;
+        private final int pieceStartX;
+        private final int pieceStartY;
+        private final String pieceAdjustments;
+
+        private Key(int boardWidth, int boardHeight, GameSettings settings) {
+            this.boardWidth = boardWidth;
+            this.boardHeight = boardHeight;
+            settingsId = settings.id;
+            slidingOn = settings.isSlidingOn;
+            rotationDirection = settings.rotationDirection.getClass().getSimpleName();
+            pieceStartX = settings.pieceStartX;
+            pieceStartY = settings.pieceStartY;
+            pieceAdjustments = Arrays.toString(settings.pieceAdjustments);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            if (boardWidth != key.boardWidth) return false;
+            if (boardHeight != key.boardHeight) return false;
+            if (slidingOn != key.slidingOn) return false;
+            if (pieceStartX != key.pieceStartX) return false;
+            if (pieceStartY != key.pieceStartY) return false;
+            if (!settingsId.equals(key.settingsId)) return false;
+            if (!rotationDirection.equals(key.rotationDirection)) return false;
+            if (!pieceAdjustments.equals(key.pieceAdjustments)) return false;
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = boardWidth;
+            result = 31 * result + boardHeight;
+            result = 31 * result + settingsId.hashCode();
+            result = 31 * result + (slidingOn ? 1 : 0);
+            result = 31 * result + rotationDirection.hashCode();
+            result = 31 * result + pieceStartX;
+            result = 31 * result + pieceStartY;
+            result = 31 * result + pieceAdjustments.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                    "boardWidth=" + boardWidth +
+                    ", boardHeight=" + boardHeight +
+                    ", settingsId='" + settingsId + '\'' +
+                    ", slidingOn=" + slidingOn +
+                    ", rotationDirection=" + rotationDirection +
+                    ", pieceStartX=" + pieceStartX +
+                    ", pieceStartY=" + pieceStartY +
+                    ", pieceAdjustments=" + pieceAdjustments +
+                    '}';
+        }
+    }
+}
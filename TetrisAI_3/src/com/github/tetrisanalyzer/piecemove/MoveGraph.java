@@ -0,0 +1,331 @@
+package com.github.tetrisanalyzer.piecemove;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.PackedBoard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The piece moves that can be reached from a start move, stored as nodes in primitive arrays
+ * instead of as linked PieceMove objects, which is what the move generation (ValidMoves) walks.
+ *
+ * Node 0 is the start move and the other nodes are numbered in the order they are visited by
+ * the move generation on an empty board, so that nodes that are visited after each other are
+ * stored close to each other. For each node:
+ *  - the occupied cells of the piece rows are stored in 'rowCells', from 'rowOffsets[node]'
+ *    to (but not including) 'rowOffsets[node + 1]', where the first row is at y = 'rowYs[node]'
+ *  - the node reached by moving down is stored in 'down' (or -1 if at the bottom)
+ *  - the nodes reached by moving aside or rotating are stored in 'adjacentNodes', from
+ *    'adjacentOffsets[node]' to (but not including) 'adjacentOffsets[node + 1]'
+ *  - the PieceMove is stored in 'pieceMoves', which is only used for the valid moves
+ *
+ * When sliding is off, the piece can only move aside and rotate in the first row and is then dropped,
+ * which gives a graph where the first row nodes (the nodes that can be reached from the start node
+ * without moving down) are the start of separate chains of nodes that can only move down.
+ * Such a graph is a "hard drop" graph (see hasHardDrops), where the node in the chain of a first row node
+ * that is reached after dropping the piece 'drop' rows is stored in 'dropNodes[dropOffsets[node] + drop]'.
+ */
+public class MoveGraph {
+    private final PieceMove[] pieceMoves;
+    private final int[] rowYs;
+    private final int[] rowOffsets;
+    private final long[] rowCells;
+    private final int[] packedIndices;
+    private final long[] packedMasks0;
+    private final long[] packedMasks1;
+    private final int[] down;
+    private final int[] adjacentOffsets;
+    private final int[] adjacentNodes;
+    private final int[] dropOffsets;
+    private final int[] dropNodes;
+
+    public MoveGraph(PieceMove startMove) {
+        pieceMoves = nodes(startMove);
+
+        Map<PieceMove, Integer> nodeIndices = new IdentityHashMap<>();
+        for (int node=0; node<pieceMoves.length; node++) {
+            nodeIndices.put(pieceMoves[node], node);
+        }
+        int size = pieceMoves.length;
+        rowYs = new int[size];
+        rowOffsets = new int[size + 1];
+        packedIndices = new int[size];
+        packedMasks0 = new long[size];
+        packedMasks1 = new long[size];
+        down = new int[size];
+        adjacentOffsets = new int[size + 1];
+
+        int rows = 0;
+        int adjacent = 0;
+        for (int node=0; node<size; node++) {
+            rows += pieceMoves[node].pieceHeight;
+            adjacent += pieceMoves[node].asideAndRotate.size();
+            rowOffsets[node + 1] = rows;
+            adjacentOffsets[node + 1] = adjacent;
+        }
+        rowCells = new long[rows];
+        adjacentNodes = new int[adjacent];
+
+        for (int node=0; node<size; node++) {
+            PieceMove pieceMove = pieceMoves[node];
+            rowYs[node] = pieceMove.move.y;
+            System.arraycopy(pieceMove.orLines, 0, rowCells, rowOffsets[node], pieceMove.pieceHeight);
+            packedIndices[node] = pieceMove.packedIndex;
+            packedMasks0[node] = pieceMove.packedMask0;
+            packedMasks1[node] = pieceMove.packedMask1;
+            down[node] = pieceMove.down == null ? -1 : nodeIndices.get(pieceMove.down);
+
+            int index = adjacentOffsets[node];
+            for (PieceMove adjacentMove : pieceMove.asideAndRotate) {
+                adjacentNodes[index++] = nodeIndices.get(adjacentMove);
+            }
+        }
+        dropOffsets = hardDropOffsets();
+        dropNodes = dropOffsets == null ? null : hardDropNodes(dropOffsets);
+    }
+
+    /**
+     * Returns the offsets into 'dropNodes' for the first row nodes (and -1 for the other nodes),
+     * or null if this is not a hard drop graph.
+     */
+    private int[] hardDropOffsets() {
+        boolean[] firstRow = new boolean[size()];
+        List<Integer> stack = new ArrayList<>();
+        stack.add(0);
+        firstRow[0] = true;
+
+        while (!stack.isEmpty()) {
+            int node = stack.remove(stack.size() - 1);
+            for (int i=adjacentStart(node); i<adjacentEnd(node); i++) {
+                if (!firstRow[adjacentNodes[i]]) {
+                    firstRow[adjacentNodes[i]] = true;
+                    stack.add(adjacentNodes[i]);
+                }
+            }
+        }
+        boolean[] inChain = new boolean[size()];
+        int[] offsets = new int[size()];
+        int offset = 0;
+
+        for (int node=0; node<size(); node++) {
+            offsets[node] = -1;
+            if (!firstRow[node]) {
+                continue;
+            }
+            offsets[node] = offset++;
+
+            for (int chainNode=down[node]; chainNode >= 0; chainNode=down[chainNode]) {
+                if (firstRow[chainNode] || inChain[chainNode] || adjacentStart(chainNode) != adjacentEnd(chainNode)) {
+                    return null;
+                }
+                inChain[chainNode] = true;
+                offset++;
+            }
+        }
+        return offsets;
+    }
+
+    private int[] hardDropNodes(int[] offsets) {
+        int size = 0;
+        for (int node=0; node<size(); node++) {
+            if (offsets[node] >= 0) {
+                for (int chainNode=node; chainNode >= 0; chainNode=down[chainNode]) {
+                    size++;
+                }
+            }
+        }
+        int[] nodes = new int[size];
+        for (int node=0; node<size(); node++) {
+            int index = offsets[node];
+            for (int chainNode=node; index >= 0 && chainNode >= 0; chainNode=down[chainNode]) {
+                nodes[index++] = chainNode;
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Returns the piece moves in the order they are visited by the move generation on an empty board.
+     */
+    private static PieceMove[] nodes(PieceMove startMove) {
+        Map<PieceMove, Boolean> visited = new IdentityHashMap<>();
+        List<PieceMove> nodes = new ArrayList<>();
+        List<PieceMove> stack = new ArrayList<>();
+        stack.add(startMove);
+
+        while (!stack.isEmpty()) {
+            PieceMove pieceMove = stack.remove(stack.size() - 1);
+
+            if (pieceMove != null && visited.put(pieceMove, true) == null) {
+                nodes.add(pieceMove);
+                // Pushed in reverse order, so that the first aside/rotate move is visited first.
+                stack.add(pieceMove.down);
+                List<PieceMove> asideAndRotate = new ArrayList<>(pieceMove.asideAndRotate);
+                for (int i=asideAndRotate.size() - 1; i>=0; i--) {
+                    stack.add(asideAndRotate.get(i));
+                }
+            }
+        }
+        return nodes.toArray(new PieceMove[nodes.size()]);
+    }
+
+    public int size() {
+        return pieceMoves.length;
+    }
+
+    public PieceMove pieceMove(int node) {
+        return pieceMoves[node];
+    }
+
+    /**
+     * Returns the node that is reached by moving down, or -1 if the node is at the bottom of the board.
+     */
+    public int down(int node) {
+        return down[node];
+    }
+
+    public int adjacentStart(int node) {
+        return adjacentOffsets[node];
+    }
+
+    public int adjacentEnd(int node) {
+        return adjacentOffsets[node + 1];
+    }
+
+    public int adjacentNode(int index) {
+        return adjacentNodes[index];
+    }
+
+    /**
+     * True if this graph, mirrored left to right on a board with the given width, is the graph 'that':
+     * each node has a node in 'that' with the mirrored occupied cells, and the start nodes, the nodes below
+     * and the adjacent nodes correspond to each other. The valid moves of this piece on a board are then
+     * the mirror images of the valid moves of the piece of 'that' on the mirrored board.
+     */
+    public boolean isMirrorOf(MoveGraph that, int boardWidth) {
+        if (size() != that.size()) {
+            return false;
+        }
+        Map<Footprint, Integer> thatNodes = new HashMap<>();
+        for (int node=0; node<that.size(); node++) {
+            thatNodes.put(that.footprint(node, 0), node);
+        }
+        int[] mirroredNodes = new int[size()];
+        for (int node=0; node<size(); node++) {
+            Integer mirroredNode = thatNodes.get(footprint(node, boardWidth));
+            if (mirroredNode == null) {
+                return false;
+            }
+            mirroredNodes[node] = mirroredNode;
+        }
+        if (mirroredNodes[0] != 0) {
+            return false;
+        }
+        for (int node=0; node<size(); node++) {
+            int mirroredNode = mirroredNodes[node];
+            int mirroredDown = down[node] < 0 ? -1 : mirroredNodes[down[node]];
+            if (mirroredDown != that.down[mirroredNode]) {
+                return false;
+            }
+            int[] adjacent = new int[adjacentEnd(node) - adjacentStart(node)];
+            for (int i=0; i<adjacent.length; i++) {
+                adjacent[i] = mirroredNodes[adjacentNodes[adjacentStart(node) + i]];
+            }
+            int[] thatAdjacent = Arrays.copyOfRange(that.adjacentNodes, that.adjacentStart(mirroredNode), that.adjacentEnd(mirroredNode));
+            Arrays.sort(adjacent);
+            Arrays.sort(thatAdjacent);
+            if (!Arrays.equals(adjacent, thatAdjacent)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the occupied cells of the node, mirrored left to right on a board
+     * with the given width, or as they are if 'mirrorWidth' is 0.
+     */
+    private Footprint footprint(int node, int mirrorWidth) {
+        long[] cells = Arrays.copyOfRange(rowCells, rowOffsets[node], rowOffsets[node + 1]);
+        if (mirrorWidth > 0) {
+            for (int i=0; i<cells.length; i++) {
+                cells[i] = Long.reverse(cells[i]) >>> (64 - mirrorWidth);
+            }
+        }
+        return new Footprint(rowYs[node], cells);
+    }
+
+    private static class Footprint {
+        private final int y;
+        private final long[] rowCells;
+
+        Footprint(int y, long[] rowCells) {
+            this.y = y;
+            this.rowCells = rowCells;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Footprint)) {
+                return false;
+            }
+            Footprint that = (Footprint) o;
+            return y == that.y && Arrays.equals(rowCells, that.rowCells);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * y + Arrays.hashCode(rowCells);
+        }
+    }
+
+    /**
+     * True if the pieces can only move aside and rotate in the first row, before they are dropped.
+     */
+    public boolean hasHardDrops() {
+        return dropOffsets != null;
+    }
+
+    /**
+     * Returns the node where a piece in a (free) first row node lands when it is dropped,
+     * calculated from the columns of the board in time proportional to the number of piece cells.
+     * Can only be called if hasHardDrops() and board.hasColumns() are true.
+     */
+    public int hardDropNode(int node, Board board) {
+        int drop = Integer.MAX_VALUE;
+        int y = rowYs[node];
+
+        for (int i=rowOffsets[node]; i<rowOffsets[node + 1]; i++, y++) {
+            long cells = rowCells[i];
+            while (cells != 0) {
+                int x = Long.numberOfTrailingZeros(cells);
+                cells &= cells - 1;
+                // The number of free cells below the piece cell (the floor bit is always set).
+                drop = Math.min(drop, Long.numberOfTrailingZeros(board.column(x) >>> (y + 1)));
+            }
+        }
+        return dropNodes[dropOffsets[node] + drop];
+    }
+
+    /**
+     * True if the piece position of the node is not occupied (same as PieceMove.isFree).
+     */
+    public boolean isFree(int node, Board board) {
+        int packedIndex = packedIndices[node];
+        if (packedIndex >= 0 && board.isPacked()) {
+            return ((PackedBoard)board).isFree(packedIndex, packedMasks0[node], packedMasks1[node]);
+        }
+        int y = rowYs[node];
+        for (int i=rowOffsets[node]; i<rowOffsets[node + 1]; i++, y++) {
+            if (!board.isBitsFree(y, rowCells[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.tetrisanalyzer.piecemove;
 
 import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.PackedBoard;
 import com.github.tetrisanalyzer.move.Move;
 import com.github.tetrisanalyzer.piece.Piece;
 import com.github.tetrisanalyzer.piece.Point;
@@ -13,17 +14,23 @@ import java.util.Set;
  * Holds the valid moves of a piece + supports setting and clearing a piece.
  */
 public class PieceMove {
-    private int pieceHeight;
+    int pieceHeight;
     public Piece piece;
     public final Move move;
 
     public PieceMove down;
     public Set<PieceMove> asideAndRotate = new LinkedHashSet<>();
+    private MoveGraph moveGraph;
 
     private int[] boardLineIndices;
-    private long[] orLines;
+    long[] orLines;
     private long[] andLines;
 
+    // The piece cells in the word layout of PackedBoard (packedIndex is -1 if not used).
+    int packedIndex = -1;
+    long packedMask0;
+    long packedMask1;
+
     private static final long ALL_BITS_CLEARED = 0;
     private static final long ALL_BITS_SET = -1;
 
@@ -46,6 +53,38 @@ public class PieceMove {
             orLines[point.y] |= bit;
             andLines[point.y] &= ~bit;
         }
+        if (move.x >= 0 && move.y >= 0 && move.x + piece.width(move.rotation) <= PackedBoard.MAX_WIDTH) {
+            calculatePackedMasks();
+        }
+    }
+
+    private void calculatePackedMasks() {
+        packedIndex = move.y >> 2;
+
+        for (int y=0; y<pieceHeight; y++) {
+            int boardY = move.y + y;
+            long cells = orLines[y] << ((boardY & 3) << 4);
+
+            if ((boardY >> 2) == packedIndex) {
+                packedMask0 |= cells;
+            } else {
+                packedMask1 |= cells;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rows of the piece, where the top row is move.y.
+     */
+    public int height() {
+        return pieceHeight;
+    }
+
+    /**
+     * Returns the cells of the piece in row move.y + y, where bit x is set if the piece occupies the cell (x, move.y + y).
+     */
+    public long rowCells(int y) {
+        return orLines[y];
     }
 
     public void setDown(PieceMove down) {
@@ -60,6 +99,17 @@ public class PieceMove {
         return asideAndRotate;
     }
 
+    /**
+     * Returns the moves that can be reached from this move as a MoveGraph, created the first time
+     * it's asked for, so it must not be called until all moves have been linked.
+     */
+    public MoveGraph moveGraph() {
+        if (moveGraph == null) {
+            moveGraph = new MoveGraph(this);
+        }
+        return moveGraph;
+    }
+
     /**
      * Sets a piece on the board.
      *
@@ -72,6 +122,27 @@ public class PieceMove {
         return board.clearRows(move.y, pieceHeight);
     }
 
+    /**
+     * Sets a piece on the board and records the cleared rows,
+     * so that the move can be taken back by calling unmakeMove.
+     *
+     * @return number of cleared lines
+     */
+    public int makeMove(Board board) {
+        for (int y=0; y<pieceHeight; y++) {
+            board.setBits(boardLineIndices[y], orLines[y]);
+        }
+        return board.clearRowsAndRecord(move.y, pieceHeight);
+    }
+
+    /**
+     * Takes back the last move made by makeMove, including cleared lines.
+     */
+    public void unmakeMove(Board board) {
+        board.undoClearRows();
+        clearPiece(board);
+    }
+
     /**
      * Removes a piece from the board.
      */
@@ -85,6 +156,9 @@ public class PieceMove {
      * True if the piece position is not occupied.
      */
     public boolean isFree(Board board) {
+        if (packedIndex >= 0 && board.isPacked()) {
+            return ((PackedBoard)board).isFree(packedIndex, packedMask0, packedMask1);
+        }
         for (int y=0; y<pieceHeight; y++) {
             if (!board.isBitsFree(boardLineIndices[y], orLines[y])) {
                 return false;
@@ -6,11 +6,19 @@ import com.github.tetrisanalyzer.move.rotation.RotationDirection;
 import com.github.tetrisanalyzer.piece.Piece;
 import com.github.tetrisanalyzer.settings.GameSettings;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Calculates all valid moves for a given piece and board.
  * If sliding is off (free drop), rotations and lateral movements can only occur at the first row.
  */
 public class ValidPieceMoves {
+    // The order in which the directions are visited from a movement (see Step).
+    private static final int ROTATE = 0;
+    private static final int LEFT = 1;
+    private static final int DOWN = 3;
+
     private boolean isSlidingOn;
     private Piece piece;
     private GameSettings settings;
@@ -65,21 +73,61 @@ public class ValidPieceMoves {
     }
 
     /**
-     * Calculate all valid moves on an empty board recursively.
+     * Calculate all valid moves on an empty board, depth first with an explicit stack.
+     *
+     * A movement is visited by rotating, moving left, moving right (if sliding is on or
+     * if it's the first row) and finally by moving down. The next movement is not created
+     * until the previous one is fully visited, because VisitedPieceMoves.get returns
+     * already visited piece moves, which gives the same linked moves as a recursive traversal.
      *
      * @param fromMovement the position and orientation we are coming from
      * @param movement position and orientation of current piece
      * @param firstRow true if the action "drop piece" has started
      */
     private void calculateValidMoves(Movement fromMovement, Movement movement, int boardWidth, int boardHeight, boolean firstRow) {
-        while (visitedPieceMoves.isUnvisited(movement) && movement.isPieceInsideBoard(boardWidth, boardHeight)) {
-            markAsVisited(fromMovement, movement);
-            if (isSlidingOn || firstRow) {
-                calculateValidMoves(movement, movement.rotate(rotationDirection, visitedPieceMoves), boardWidth, boardHeight, firstRow);
-                calculateValidMoves(movement, movement.left(visitedPieceMoves), boardWidth, boardHeight, firstRow);
-                calculateValidMoves(movement, movement.right(visitedPieceMoves), boardWidth, boardHeight, firstRow);
+        List<Step> stack = new ArrayList<>();
+        visit(fromMovement, movement, boardWidth, boardHeight, firstRow, stack);
+
+        while (!stack.isEmpty()) {
+            Step step = stack.get(stack.size() - 1);
+            Movement from = step.movement;
+
+            if (step.direction < DOWN && (isSlidingOn || step.firstRow)) {
+                Movement next;
+                switch (step.direction++) {
+                    case ROTATE: next = from.rotate(rotationDirection, visitedPieceMoves); break;
+                    case LEFT: next = from.left(visitedPieceMoves); break;
+                    default: next = from.right(visitedPieceMoves); break;
+                }
+                visit(from, next, boardWidth, boardHeight, step.firstRow, stack);
+            } else {
+                stack.remove(stack.size() - 1);
+                visit(from, from.down(visitedPieceMoves), boardWidth, boardHeight, false, stack);
             }
-            calculateValidMoves(movement, movement.down(visitedPieceMoves), boardWidth, boardHeight, false);
+        }
+    }
+
+    /**
+     * A movement is marked as visited from its own direction, so it's only entered once.
+     */
+    private void visit(Movement fromMovement, Movement movement, int boardWidth, int boardHeight, boolean firstRow, List<Step> stack) {
+        if (movement.isPieceInsideBoard(boardWidth, boardHeight) && visitedPieceMoves.isUnvisited(movement)) {
+            markAsVisited(fromMovement, movement);
+            stack.add(new Step(movement, firstRow));
+        }
+    }
+
+    /**
+     * A visited movement on the stack and the direction to continue with.
+     */
+    private static class Step {
+        final Movement movement;
+        final boolean firstRow;
+        int direction = ROTATE;
+
+        Step(Movement movement, boolean firstRow) {
+            this.movement = movement;
+            this.firstRow = firstRow;
         }
     }
 
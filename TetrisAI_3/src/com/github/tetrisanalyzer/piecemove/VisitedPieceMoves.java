@@ -59,13 +59,10 @@ public class VisitedPieceMoves {
 
     /**
      * True if this movement has not been visited.
+     * The movement must be inside the board (see Movement.isPieceInsideBoard).
      */
     public boolean isUnvisited(Movement movement) {
-        try {
-            Move move = movement.getMove();
-            return (moves[move.y][move.x][movement.directionIndex()] & (1 << move.rotation)) == 0;
-        } catch (IndexOutOfBoundsException e) {
-            return false;
-        }
+        Move move = movement.getMove();
+        return (moves[move.y][move.x][movement.directionIndex()] & (1 << move.rotation)) == 0;
     }
 }
@@ -1,13 +1,16 @@
 package com.github.tetrisanalyzer.settings;
 
 import com.github.tetrisanalyzer.board.ColoredBoard;
+import com.github.tetrisanalyzer.board.PackedBoard;
 import com.github.tetrisanalyzer.boardevaluator.BoardEvaluator;
+import com.github.tetrisanalyzer.boardevaluator.CachingBoardEvaluator;
 import com.github.tetrisanalyzer.game.Distribution;
 import com.github.tetrisanalyzer.game.Duration;
 import com.github.tetrisanalyzer.game.Game;
 import com.github.tetrisanalyzer.game.GameState;
 import com.github.tetrisanalyzer.piece.Piece;
 import com.github.tetrisanalyzer.piecegenerator.PieceGenerator;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMovesCache;
 
 import java.awt.*;
 import java.lang.reflect.Constructor;
@@ -21,6 +24,15 @@ public class RaceGameSettings {
     private final SettingsReader reader;
     public int masterDepth;
     public double totalEquityDiff;
+    public int transpositionTableSize;
+    public boolean parallelSearch;
+    public int parallelThreshold;
+    public boolean packedBoard;
+    public boolean circularRows;
+    public boolean specializedEvaluator;
+    public boolean mirrorSymmetry;
+    public int evaluationCacheSize;
+    public CachingBoardEvaluator.Eviction evaluationCacheEviction;
     private boolean hide;
     private boolean paused;
     public int level;
@@ -56,7 +68,10 @@ public class RaceGameSettings {
     public RaceGameSettings(SystemSettings systemSettings, ColoredBoard startBoard, String parameterName,
                             Map parentParameters, Map settings, String tetrisRulesId, String pieceGeneratorId,
                             String boardEvaluatorId, Map boardEvaluatorSettings, Duration mainDuration, Color color,
-                            int level, int numberOfKnownPieces, int masterDepth, boolean showAll) {
+                            int level, int numberOfKnownPieces, int masterDepth, int transpositionTableSize,
+                            boolean parallelSearch, int parallelThreshold, boolean packedBoard, boolean circularRows,
+                            boolean specializedEvaluator, boolean mirrorSymmetry, int evaluationCacheSize,
+                            CachingBoardEvaluator.Eviction evaluationCacheEviction, boolean showAll) {
         reader = new SettingsReader(settings, "game");
 
         this.color = reader.readColor("color", color);
@@ -98,6 +113,19 @@ public class RaceGameSettings {
             this.numberOfKnownPieces = level;
         }
         this.masterDepth = reader.readInteger("master depth", masterDepth);
+        this.transpositionTableSize = reader.readInteger("transposition table size", transpositionTableSize);
+        this.parallelSearch = reader.readBoolean("parallel search", parallelSearch);
+        this.parallelThreshold = reader.readInteger("parallel threshold", parallelThreshold);
+        this.packedBoard = reader.readBoolean("packed board", packedBoard);
+        this.circularRows = reader.readBoolean("circular rows", circularRows);
+        this.specializedEvaluator = reader.readBoolean("specialized evaluator", specializedEvaluator);
+        this.mirrorSymmetry = reader.readBoolean("mirror symmetry", mirrorSymmetry);
+        this.evaluationCacheSize = reader.readInteger("evaluation cache size", evaluationCacheSize);
+        this.evaluationCacheEviction = CachingBoardEvaluator.Eviction.fromName(
+                reader.readString("evaluation cache eviction", evaluationCacheEviction.name));
+        if (this.parallelThreshold < 1) {
+            throw new IllegalArgumentException("The 'parallel threshold' must be at least 1, but was: " + this.parallelThreshold);
+        }
         nextPieces = reader.readList("next pieces", Arrays.asList());
         hide = showAll ? false : reader.readBoolean("hide", false);
         paused = reader.readBoolean("paused", false);
@@ -130,12 +158,33 @@ public class RaceGameSettings {
         if (this.startBoard.width != board.width || this.startBoard.height != board.height) {
             throw new IllegalArgumentException("The size of 'start board' and 'board' must match");
         }
+        if (this.packedBoard && board.width > PackedBoard.MAX_WIDTH) {
+            throw new IllegalArgumentException("The 'packed board' can only be used for boards with a width of up to " + PackedBoard.MAX_WIDTH);
+        }
         Map evaluatorSettings = evaluatorSettings(boardEvaluatorSettings, parameterName, parentParameters);
         boardEvaluator = createBoardEvaluator(board.width, board.height, tetrisRules, evaluatorSettings);
 
+        if (this.mirrorSymmetry && !boardEvaluator.isMirrorSymmetric()) {
+            throw new IllegalArgumentException("The 'mirror symmetry' can only be used with a board evaluator that is left/right symmetric, which '" +
+                    this.boardEvaluatorId + "' is not");
+        }
+        if (this.mirrorSymmetry && !AllValidPieceMovesCache.get(board.width, board.height, tetrisRules).isMirrorSymmetric(board.width)) {
+            throw new IllegalArgumentException("The 'mirror symmetry' can only be used with tetris rules where the moves are left/right symmetric, which '" +
+                    this.tetrisRulesId + "' are not on a board with the width " + board.width);
+        }
+
         gameState = new GameState(duration, board, this.startBoard, distribution, boardEvaluator, pieceGenerator,
                 this.masterDepth, totalEquityDiff, this.level, this.numberOfKnownPieces, nextPieces,
                 games, pieces, totalPieces, rows, totalRows, minRows, maxRows, gamesToPlay, piecesToPlay);
+        gameState.transpositionTableSize = this.transpositionTableSize;
+        gameState.parallelSearch = this.parallelSearch;
+        gameState.parallelThreshold = this.parallelThreshold;
+        gameState.packedBoard = this.packedBoard;
+        gameState.circularRows = this.circularRows;
+        gameState.specializedEvaluator = this.specializedEvaluator;
+        gameState.mirrorSymmetry = this.mirrorSymmetry;
+        gameState.evaluationCacheSize = this.evaluationCacheSize;
+        gameState.evaluationCacheEviction = this.evaluationCacheEviction;
     }
 
     public void resetSpeedometer() {
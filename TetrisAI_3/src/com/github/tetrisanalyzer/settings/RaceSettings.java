@@ -3,6 +3,7 @@ package com.github.tetrisanalyzer.settings;
 import com.esotericsoftware.yamlbeans.YamlException;
 import com.esotericsoftware.yamlbeans.YamlReader;
 import com.github.tetrisanalyzer.board.ColoredBoard;
+import com.github.tetrisanalyzer.boardevaluator.CachingBoardEvaluator;
 import com.github.tetrisanalyzer.game.Duration;
 import com.github.tetrisanalyzer.game.GameState;
 import com.github.tetrisanalyzer.gui.Shortcuts;
@@ -25,6 +26,15 @@ public class RaceSettings {
     public int level;
     public int numberOfKnownPieces;
     public int masterDepth;
+    public int transpositionTableSize;
+    public boolean parallelSearch;
+    public int parallelThreshold;
+    public boolean packedBoard;
+    public boolean circularRows;
+    public boolean specializedEvaluator;
+    public boolean mirrorSymmetry;
+    public int evaluationCacheSize;
+    public CachingBoardEvaluator.Eviction evaluationCacheEviction;
     public GameSettings tetrisRules;
     public String parameterName;
     public Map parameters;
@@ -70,6 +80,16 @@ public class RaceSettings {
         level = reader.readInteger("level", 1);
         numberOfKnownPieces = reader.readInteger("number of known pieces", 1);
         masterDepth = reader.readInteger("master depth", 0);
+        transpositionTableSize = reader.readInteger("transposition table size", 0);
+        parallelSearch = reader.readBoolean("parallel search", false);
+        parallelThreshold = reader.readInteger("parallel threshold", 2);
+        packedBoard = reader.readBoolean("packed board", false);
+        circularRows = reader.readBoolean("circular rows", false);
+        specializedEvaluator = reader.readBoolean("specialized evaluator", false);
+        mirrorSymmetry = reader.readBoolean("mirror symmetry", false);
+        evaluationCacheSize = reader.readInteger("evaluation cache size", 0);
+        evaluationCacheEviction = CachingBoardEvaluator.Eviction.fromName(
+                reader.readString("evaluation cache eviction", CachingBoardEvaluator.Eviction.SECOND_CHANCE.name));
         Duration duration = reader.readDuration();
         areaPercentage = reader.readDouble("area %", 30);
         startBoard = reader.readBoard("start board", null);
@@ -104,7 +124,9 @@ public class RaceSettings {
 
             RaceGameSettings game = new RaceGameSettings(systemSettings, startBoard, parameterName,
                     parameters, gameMap, tetrisRulesId, pieceGeneratorId, evaluatorId,
-                    evaluatorSettings, duration, color, level, numberOfKnownPieces, masterDepth, showAll);
+                    evaluatorSettings, duration, color, level, numberOfKnownPieces, masterDepth, transpositionTableSize,
+                    parallelSearch, parallelThreshold, packedBoard, circularRows, specializedEvaluator, mirrorSymmetry,
+                    evaluationCacheSize, evaluationCacheEviction, showAll);
             if (game.color != color) {
                 // Don't consume the global color if a color was explicitly specified.
                 idx--;
@@ -241,6 +263,14 @@ public class RaceSettings {
             String masterDepth = "   master depth: " + state.masterDepth + "\n";
             String totalEquityDiff = "   total equity diff: " + state.totalEquityDiff + "\n";
             String master = state.masterDepth == 0 ? "" : masterDepth + totalEquityDiff;
+            String transpositionTable = state.transpositionTableSize == 0 ? "" : "   transposition table size: " + state.transpositionTableSize + "\n";
+            String parallel = state.parallelSearch ? "   parallel search: true\n   parallel threshold: " + state.parallelThreshold + "\n" : "";
+            String packedBoard = state.packedBoard ? "   packed board: true\n" : "";
+            String circularRows = state.circularRows ? "   circular rows: true\n" : "";
+            String specializedEvaluator = state.specializedEvaluator ? "   specialized evaluator: true\n" : "";
+            String mirrorSymmetry = state.mirrorSymmetry ? "   mirror symmetry: true\n" : "";
+            String evaluationCache = state.evaluationCacheSize == 0 ? "" : "   evaluation cache size: " + state.evaluationCacheSize + "\n" +
+                    "   evaluation cache eviction: " + state.evaluationCacheEviction.name + "\n";
 
             games += headValues +
                     level +
@@ -248,6 +278,13 @@ public class RaceSettings {
                     gamesToPlay +
                     piecesToPlay +
                     master +
+                    transpositionTable +
+                    parallel +
+                    packedBoard +
+                    circularRows +
+                    specializedEvaluator +
+                    mirrorSymmetry +
+                    evaluationCache +
                     nextPieces +
                     duration +
                     hide +
@@ -277,6 +314,14 @@ public class RaceSettings {
         String percentage = "area %: " + areaPercentage + "\n";
 
         String masterDepth = this.masterDepth == 0 ? "" : "master depth: " + this.masterDepth + "\n";
+        String transpositionTable = transpositionTableSize == 0 ? "" : "transposition table size: " + transpositionTableSize + "\n";
+        String parallel = parallelSearch ? "parallel search: true\nparallel threshold: " + parallelThreshold + "\n" : "";
+        String packedBoard = this.packedBoard ? "packed board: true\n" : "";
+        String circularRows = this.circularRows ? "circular rows: true\n" : "";
+        String specializedEvaluator = this.specializedEvaluator ? "specialized evaluator: true\n" : "";
+        String mirrorSymmetry = this.mirrorSymmetry ? "mirror symmetry: true\n" : "";
+        String evaluationCache = evaluationCacheSize == 0 ? "" : "evaluation cache size: " + evaluationCacheSize + "\n" +
+                "evaluation cache eviction: " + evaluationCacheEviction.name + "\n";
         String parameters = this.parameters == null ? "" : parameters(this.parameters, "  ");
 
 
@@ -287,6 +332,13 @@ public class RaceSettings {
                "level: " + level + "\n" +
                "number of known pieces: " + numberOfKnownPieces + "\n" +
                masterDepth +
+               transpositionTable +
+               parallel +
+               packedBoard +
+               circularRows +
+               specializedEvaluator +
+               mirrorSymmetry +
+               evaluationCache +
                "parameter name: " + parameterName + "\n" +
                parameters +
                "save on close: " + saveOnClose + "\n" +
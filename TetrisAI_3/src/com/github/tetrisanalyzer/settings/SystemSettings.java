@@ -14,6 +14,7 @@ public class SystemSettings {
     public Map<String, GameSettings> gameSettings = new HashMap<>();
     public Map<String, Map> pieceGeneratorSettings = new HashMap<>();
     public Map<String, Map> boardEvaluatorSettings = new HashMap<>();
+    public String moveGraphDirectory;
 
     public static SystemSettings fromString(String settings) {
         try {
@@ -38,6 +39,7 @@ public class SystemSettings {
         setTetrisRules();
         setPieceGenerators();
         setBoardEvaluators();
+        moveGraphDirectory = reader.readString("move graph directory", null);
     }
 
     private void setTetrisRules() {
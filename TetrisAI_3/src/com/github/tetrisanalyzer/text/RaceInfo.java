@@ -1,7 +1,9 @@
 package com.github.tetrisanalyzer.text;
 
+import com.github.tetrisanalyzer.boardevaluator.CachingBoardEvaluator;
 import com.github.tetrisanalyzer.game.GameState;
 import com.github.tetrisanalyzer.game.StringUtils;
+import com.github.tetrisanalyzer.game.TranspositionTable;
 import com.github.tetrisanalyzer.settings.RaceGameSettings;
 import com.github.tetrisanalyzer.settings.RaceSettings;
 
@@ -48,6 +50,12 @@ public class RaceInfo {
         if (hasMaster()) {
             rows.add(rpad("equity diff:", paramLength));
         }
+        if (hasTranspositionTable()) {
+            rows.add(rpad("tt hit rate:", paramLength));
+        }
+        if (hasEvaluationCache()) {
+            rows.add(rpad("ec hits, misses:", paramLength));
+        }
         rows.add(rpad("games:", paramLength));
         rows.add(rpad("rows:", paramLength));
         rows.add(rpad("area (" + raceSettings.areaPercentage + "%):", paramLength));
@@ -71,6 +79,24 @@ public class RaceInfo {
         return false;
     }
 
+    private boolean hasTranspositionTable() {
+        for (RaceGameSettings settings : raceSettings.games) {
+            if (settings.transpositionTableSize > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasEvaluationCache() {
+        for (RaceGameSettings settings : raceSettings.games) {
+            if (settings.evaluationCacheSize > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private int textRows() {
         return text(20).size();
     }
@@ -104,6 +130,14 @@ public class RaceInfo {
             if (hasMaster()) {
                 values.add(state.equityDiffPerPieceFormatted());
             }
+            if (hasTranspositionTable()) {
+                TranspositionTable transpositionTable = settings.game.transpositionTable;
+                values.add(transpositionTable == null ? "" : transpositionTable.hitRateFormatted());
+            }
+            if (hasEvaluationCache()) {
+                CachingBoardEvaluator evaluationCache = settings.game.evaluationCache;
+                values.add(evaluationCache == null ? "" : format(evaluationCache.hits()) + " : " + format(evaluationCache.misses()));
+            }
             values.add(state.games == 0 ? "" : format(state.games));
             values.add(format(state.rows));
             values.add(state.areaFormatted());
@@ -0,0 +1,26 @@
+package test.java.com.github.tetrisanalyzer;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures how much memory the code under test allocates.
+ */
+public class Allocations {
+
+    /**
+     * Runs the call 'times' times and returns the number of bytes that the current thread allocated meanwhile.
+     * Make the first call before measuring, so that the buffers the call reuses and the classes it loads aren't counted.
+     */
+    public static long allocatedBytes(int times, Runnable call) {
+        ThreadMXBean threadBean = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i=0; i<times; i++) {
+            call.run();
+        }
+        return threadBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+    }
+}
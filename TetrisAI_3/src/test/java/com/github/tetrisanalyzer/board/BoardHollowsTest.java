@@ -0,0 +1,90 @@
+package test.java.com.github.tetrisanalyzer.board;
+
+import com.github.tetrisanalyzer.board.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static test.java.com.github.tetrisanalyzer.board.RandomBoards.randomBoard;
+
+public class BoardHollowsTest {
+
+    @Test
+    public void holes() {
+        Board board = Board.create(
+                "|------x|",
+                "|-----xx|",
+                "|-x---x-|",
+                "|x-x--xx|",
+                "---------");
+        BoardOutline outline = new BoardOutline(board);
+        BoardHollows hollows = new BoardHollows(board, outline);
+
+        assertFalse(hollows.hasHoles(1));
+        assertEquals(0b1000000, hollows.holes(2));
+        assertEquals(0b0000010, hollows.holes(3));
+        assertEquals(2, hollows.minHoleY);
+        assertEquals(3, hollows.maxHoleY);
+        assertEquals(0, hollows.minOutlineForHole(2));
+        assertEquals(2, hollows.minOutlineForHole(3));
+        assertEquals(0, hollows.minHoleOutline);
+        assertEquals(5, hollows.freeCells(2));
+    }
+
+    @Test
+    public void noHoles() {
+        Board board = Board.create(
+                "|-------|",
+                "|-------|",
+                "|-----x-|",
+                "|x-x--xx|",
+                "---------");
+        BoardHollows hollows = new BoardHollows(board, new BoardOutline(board));
+
+        assertEquals(4, hollows.minHoleY);
+        assertEquals(-1, hollows.maxHoleY);
+        assertEquals(4, hollows.minHoleOutline);
+    }
+
+    /**
+     * Compares with the cell by cell calculation that the evaluators did before.
+     */
+    @Test
+    public void sameAsCellByCell() {
+        Random random = new Random(1);
+        double[] factors = { 0, 0.46, 0.51, 0.5, 0.4, 0.34, 0.29, 0.25, 0.21, 0.18 };
+
+        for (int i=0; i<1000; i++) {
+            Board board = randomBoard(random, 10, 20, random.nextInt(20));
+            BoardOutline outline = new BoardOutline(board);
+            BoardHollows hollows = new BoardHollows(board, outline, factors);
+
+            for (int y=outline.minY; y<board.height; y++) {
+                int minOutlineForHole = board.height;
+                boolean hasHoles = false;
+
+                for (int x=0; x<board.width; x++) {
+                    if (outline.get(x) < y && board.isFree(x, y)) {
+                        hasHoles = true;
+                        minOutlineForHole = Math.min(minOutlineForHole, outline.get(x));
+                    }
+                }
+                assertEquals(hasHoles, hollows.hasHoles(y));
+                assertEquals(minOutlineForHole, hollows.minOutlineForHole(y));
+                assertEquals(board.width - board.numberOfOccupiedCells(y), hollows.freeCells(y));
+
+                for (int fromY=outline.minY; fromY<=y; fromY++) {
+                    double hollowFactor = 1;
+                    for (int row=fromY; row<=y; row++) {
+                        hollowFactor *= factors[board.width - board.numberOfOccupiedCells(row)];
+                    }
+                    assertEquals(hollowFactor, hollows.hollowFactorProduct(fromY, y), 1e-12);
+                }
+            }
+            assertTrue(hollows.minHoleY <= hollows.maxHoleY || hollows.maxHoleY == -1);
+        }
+    }
+}
@@ -38,4 +38,21 @@ public class BoardOutlineTest {
     public void freeRows() {
         assertEquals(2.42, new BoardOutline(board).freeRows, 0.01);
     }
+
+    @Test
+    public void addCells() {
+        BoardOutline outline = new BoardOutline();
+        outline.copy(new BoardOutline(board));
+
+        // Cells in column 3 and 4, where column 4 had the lowest outline.
+        board.setBits(2, 0b11000);
+        board.setBits(3, 0b10000);
+        outline.addCells(2, 0b11000);
+        outline.addCells(3, 0b10000);
+        BoardOutline expected = new BoardOutline(board);
+
+        assertEquals(expected, outline);
+        assertEquals(expected.maxY, outline.maxY);
+        assertEquals(expected.freeRows, outline.freeRows, 0);
+    }
 }
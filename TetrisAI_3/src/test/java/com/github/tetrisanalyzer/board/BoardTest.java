@@ -109,6 +109,196 @@ public class BoardTest {
                 "============"), board);
     }
 
+    @Test
+    public void undoClearRows() {
+        Board board = Board.create(
+                "|----------|",
+                "|----x-----|",
+                "|xxxxxxxxxx|",
+                "|xxxxxxxxxx|",
+                "|-x--x----x|",
+                "|xxxxxxxxxx|",
+                "============");
+        Board expected = board.copy();
+
+        assertEquals(3, board.clearRowsAndRecord(2, 4));
+        assertEquals(0, board.clearRowsAndRecord(3, 1));
+
+        board.undoClearRows();
+        board.undoClearRows();
+
+        assertEquals(expected, board);
+        assertEquals(expected.hash(), board.hash());
+    }
+
+    @Test
+    public void clearRows_circularRows() {
+        Board board = Board.create(
+                "|----------|",
+                "|----x-----|",
+                "|xxxxxxxxxx|",
+                "|xxxxxxxxxx|",
+                "|-x--x----x|",
+                "|xxxxxxxxxx|",
+                "============").withCircularRows();
+
+        assertTrue(board.hasCircularRows());
+        assertEquals(3, board.clearRows(2, 4));
+
+        Board expected = Board.create(
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----x-----|",
+                "|-x--x----x|",
+                "============");
+        assertEquals(expected, board);
+        assertEquals(expected.hash(), board.hash());
+        assertEquals(expected.toString(), board.toString());
+        assertEquals(4, board.numberOfOccupiedCells());
+    }
+
+    @Test
+    public void undoClearRows_circularRows() {
+        Board board = Board.create(
+                "|----------|",
+                "|----x-----|",
+                "|xxxxxxxxxx|",
+                "|xxxxxxxxxx|",
+                "|-x--x----x|",
+                "|xxxxxxxxxx|",
+                "============").withCircularRows();
+        Board expected = board.copy();
+
+        assertEquals(3, board.clearRowsAndRecord(2, 4));
+        assertEquals(0, board.clearRowsAndRecord(3, 1));
+
+        board.undoClearRows();
+        board.undoClearRows();
+
+        assertEquals(expected, board);
+        assertEquals(expected.hash(), board.hash());
+        assertFalse(board.isFree(0, 5));
+        assertTrue(board.isFree(0, 4));
+    }
+
+    @Test
+    public void circularRows_sameAsBoard() {
+        Board board = Board.create(10, 40);
+        Board circularBoard = board.withCircularRows();
+
+        // Completes rows at different heights so that both the rows above and below are moved.
+        for (int i=0; i<200; i++) {
+            int y = 39 - (i * 7) % 30;
+            int x = (i * 3) % 10;
+            board.setBits(y, 0x3FF);
+            circularBoard.setBits(y, 0x3FF);
+            board.setBits(y - 1, 1L << x);
+            circularBoard.setBits(y - 1, 1L << x);
+
+            assertEquals(board.clearRows(y - 1, 2), circularBoard.clearRows(y - 1, 2));
+            assertEquals(board, circularBoard);
+            assertEquals(board.hash(), circularBoard.hash());
+            assertEquals(board.numberOfOccupiedCells(), circularBoard.numberOfOccupiedCells());
+        }
+    }
+
+    @Test
+    public void columns() {
+        Board board = Board.create(
+                "|------|",
+                "|-x----|",
+                "|-x--x-|",
+                "|xx-x--|",
+                "|-xxxx-|",
+                "========");
+
+        assertTrue(board.hasColumns());
+        assertEquals(0b111110L, board.column(1));
+        assertEquals(3, board.firstOccupiedY(0));
+        assertEquals(1, board.firstOccupiedY(1));
+        assertEquals(5, board.firstOccupiedY(5));
+        assertEquals(1, board.numberOfHoles(0));
+        assertEquals(0, board.numberOfHoles(1));
+        assertEquals(1, board.numberOfHoles(4));
+        assertEquals(0, board.numberOfHoles(5));
+    }
+
+    @Test
+    public void columns_areUpdated() {
+        Board board = Board.create(
+                "|------|",
+                "|-x----|",
+                "|xxxxxx|",
+                "|-x--x-|",
+                "|xxxxxx|",
+                "========");
+        board.setBits(0, 0b1L);
+        board.clearBits(3, ~0b10L);
+        board.clearRowsAndRecord(1, 4);
+
+        assertColumns(Board.create(
+                "|------|",
+                "|------|",
+                "|x-----|",
+                "|-x----|",
+                "|----x-|",
+                "========"), board);
+
+        board.undoClearRows();
+
+        assertColumns(Board.create(
+                "|x-----|",
+                "|-x----|",
+                "|xxxxxx|",
+                "|----x-|",
+                "|xxxxxx|",
+                "========"), board);
+    }
+
+    private void assertColumns(Board expected, Board board) {
+        assertEquals(expected, board);
+        for (int x=0; x<board.width; x++) {
+            assertEquals(expected.column(x), board.column(x));
+        }
+    }
+
+    @Test
+    public void numberOfOccupiedCells_isUpdated() {
+        Board board = Board.create(
+                "|------|",
+                "|-x----|",
+                "|xxxxx-|",
+                "|-x--x-|",
+                "|xxxxx-|",
+                "========");
+        assertEquals(13, board.numberOfOccupiedCells());
+        assertEquals(2, board.numberOfOccupiedCells(3));
+
+        board.setBits(1, 0b100000L);
+        board.setBits(2, 0b100000L);
+        board.setBits(3, 0b100000L);
+        board.setBits(4, 0b100000L);
+        assertEquals(17, board.numberOfOccupiedCells());
+
+        assertEquals(2, board.clearRowsAndRecord(1, 4));
+        assertEquals(5, board.numberOfOccupiedCells());
+        assertEquals(2, board.columnHeight(1));
+        assertEquals(0, board.columnHeight(3));
+
+        board.undoClearRows();
+        assertEquals(17, board.numberOfOccupiedCells());
+        assertEquals(4, board.columnHeight(1));
+        assertEquals(Board.create(board.toString().split("\n")).numberOfOccupiedCells(), board.numberOfOccupiedCells());
+    }
+
+    @Test
+    public void columns_notKeptForHighBoards() {
+        assertFalse(Board.create(10, 64).hasColumns());
+        assertTrue(Board.create(10, 63).hasColumns());
+    }
+
     @Test
     public void copy() {
         Board board = board();
@@ -125,6 +315,99 @@ public class BoardTest {
         assertEquals(copy, empty);
     }
 
+    @Test
+    public void hash_isIndependentOfMoveOrder() {
+        Board board1 = Board.create(8, 4);
+        board1.setBits(3, 0b111L);
+        board1.setBits(2, 0b10000000L);
+
+        Board board2 = Board.create(8, 4);
+        board2.setBits(2, 0b10000000L);
+        board2.setBits(3, 0b011L);
+        board2.setBits(3, 0b100L);
+
+        assertEquals(board1.hash(), board2.hash());
+        assertEquals(Board.create(
+                "|--------|",
+                "|--------|",
+                "|-------x|",
+                "|xxx-----|",
+                "==========").hash(), board1.hash());
+    }
+
+    @Test
+    public void hash_afterClearedRows() {
+        Board board = Board.create(
+                "|----------|",
+                "|----x-----|",
+                "|xxxxxxxxxx|",
+                "|-x--x----x|",
+                "============");
+        board.clearRows(2, 1);
+
+        assertEquals(Board.create(
+                "|----------|",
+                "|----------|",
+                "|----x-----|",
+                "|-x--x----x|",
+                "============").hash(), board.hash());
+    }
+
+    @Test
+    public void hash_clearBits() {
+        Board board = board();
+        long hash = board.hash();
+        board.setBits(0, 0b01000000L);
+        board.clearBits(0, ~0b01000000L);
+
+        assertEquals(hash, board.hash());
+    }
+
+    @Test
+    public void mirroredHash() {
+        Board board = Board.create(
+                "|---------|",
+                "|----x----|",
+                "|xx-xxxxxx|",
+                "|-x--x---x|",
+                "===========");
+        Board mirrored = Board.create(
+                "|---------|",
+                "|----x----|",
+                "|xxxxxx-xx|",
+                "|x---x--x-|",
+                "===========");
+
+        assertEquals(mirrored.hash(), board.mirroredHash());
+        assertEquals(board.hash(), mirrored.mirroredHash());
+        assertEquals(board.canonicalHash(), mirrored.canonicalHash());
+        assertNotEquals(board.hash(), board.mirroredHash());
+    }
+
+    @Test
+    public void mirroredHash_afterSetBitsAndClearedRows() {
+        Board board = Board.create(
+                "|---------|",
+                "|----x----|",
+                "|xx-xxxxxx|",
+                "|-x--x---x|",
+                "===========");
+        long mirroredHash = board.mirroredHash();
+        board.setBits(2, 0b100L);
+        board.clearRowsAndRecord(2, 1);
+
+        assertEquals(Board.create(
+                "|---------|",
+                "|---------|",
+                "|----x----|",
+                "|x---x--x-|",
+                "===========").hash(), board.mirroredHash());
+
+        board.undoClearRows();
+        board.clearBits(2, ~0b100L);
+        assertEquals(mirroredHash, board.mirroredHash());
+    }
+
     @Test
     public void canHaveOddNumberOfCellsOnAnOddBoardWidth() {
         Board.create(
@@ -0,0 +1,68 @@
+package test.java.com.github.tetrisanalyzer.board;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.ColoredBoard;
+import com.github.tetrisanalyzer.boardevaluator.TengstrandBoardEvaluator12;
+import com.github.tetrisanalyzer.game.Distribution;
+import com.github.tetrisanalyzer.game.Duration;
+import com.github.tetrisanalyzer.game.Game;
+import com.github.tetrisanalyzer.game.GameState;
+import com.github.tetrisanalyzer.piecegenerator.LinearCongrentialPieceGenerator;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+
+/**
+ * Compares a board that moves the rows in an array when rows are cleared with a board
+ * that stores the rows in a circular buffer (Board.withCircularRows), on a 10x128 board:
+ *  - clearing (and restoring) a row near the bottom, as done by the lookahead search
+ *  - a race of the given number of pieces (default 20000)
+ *
+ * Not a unit test, run it from the IDE (main method).
+ */
+public class CircularRowsBenchmark {
+    private static final int WIDTH = 10;
+    private static final int HEIGHT = 128;
+    private static final int ROUNDS = 10;
+    private static final int ITERATIONS = 1000000;
+
+    public static void main(String[] args) {
+        long piecesToPlay = args.length > 0 ? Long.parseLong(args[0]) : 20000;
+
+        for (int round=1; round<=ROUNDS; round++) {
+            System.out.printf("round %2d: clear rows %.1f / %.1f ns, race %.0f / %.0f pieces/s%n", round,
+                    clearRowsNanos(Board.create(WIDTH, HEIGHT)),
+                    clearRowsNanos(Board.create(WIDTH, HEIGHT).withCircularRows()),
+                    piecesPerSecond(piecesToPlay, false),
+                    piecesPerSecond(piecesToPlay, true));
+        }
+    }
+
+    private static double clearRowsNanos(Board board) {
+        int y = HEIGHT - 4;
+        board.setBits(HEIGHT - 1, 0x1FF);
+        board.setBits(HEIGHT - 2, 0x2FF);
+        board.setBits(HEIGHT - 3, 0x3FE);
+
+        long start = System.nanoTime();
+        for (int i=0; i<ITERATIONS; i++) {
+            board.setBits(y, 0x3FF);
+            board.clearRowsAndRecord(y, 1);
+            board.undoClearRows();
+            board.clearBits(y, ~0x3FFL);
+        }
+        return (double)(System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static double piecesPerSecond(long piecesToPlay, boolean circularRows) {
+        ColoredBoard board = ColoredBoard.create(WIDTH, HEIGHT);
+        GameSettings settings = new AtariGameSettings(board, true);
+        GameState state = new GameState(Duration.create(), board, board.copy(), new Distribution(WIDTH, HEIGHT),
+                new TengstrandBoardEvaluator12(WIDTH, HEIGHT, settings), new LinearCongrentialPieceGenerator(1),
+                0, 0, 1, 1, null, 0, 0, 0, 0, 0, 0, 0, null, piecesToPlay);
+        state.circularRows = circularRows;
+
+        long start = System.nanoTime();
+        new Game(state, settings, false, false).run();
+        return piecesToPlay * 1e9 / (System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,120 @@
+package test.java.com.github.tetrisanalyzer.board;
+
+import com.github.tetrisanalyzer.board.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class OutlineAreasTest {
+
+    @Test
+    public void areas() {
+        Board board = Board.create(
+                "|------x|",
+                "|-----xx|",
+                "|-x---xx|",
+                "|x-x--xx|",
+                "---------");
+        OutlineAreas areas = new OutlineAreas(new BoardOutline(board));
+
+        assertEquals(Arrays.asList(
+                "1x1 y=2 startY=2 floor",
+                "5x1 y=1 startY=1",
+                "3x1 y=2 startY=1",
+                "2x1 y=3 startY=1",
+                "6x1 y=0 startY=0"), areas(areas));
+    }
+
+    /**
+     * Compares with the areas found by the column by column, row by row scan
+     * that the evaluators did before, on random outlines.
+     */
+    @Test
+    public void sameAsScan() {
+        Random random = new Random(1);
+
+        for (int i=0; i<20000; i++) {
+            int width = 1 + random.nextInt(i % 2 == 0 ? 12 : 64);
+            int height = 4 + random.nextInt(i % 3 == 0 ? 8 : 60);
+            int[] outline = new int[width + 1];
+            int minY = height;
+
+            for (int x=0; x<width; x++) {
+                // Few different heights gives many walls with the same height.
+                outline[x] = random.nextBoolean() ? random.nextInt(height + 1) : height - random.nextInt(4);
+                minY = Math.min(minY, outline[x]);
+            }
+            BoardOutline boardOutline = new BoardOutline(minY, 0, outline);
+
+            assertEquals(scan(boardOutline, width, height), areas(new OutlineAreas(boardOutline)));
+        }
+    }
+
+    private List<String> areas(OutlineAreas areas) {
+        List<String> result = new ArrayList<>();
+        for (int i=0; i<areas.size(); i++) {
+            result.add(area(areas.width(i), areas.height(i), areas.y(i), areas.startY(i), areas.hasWallsSameHeight(i), areas.isFloor(i)));
+        }
+        return result;
+    }
+
+    private String area(int width, int height, int y, int startY, boolean hasWallsSameHeight, boolean isFloor) {
+        return width + "x" + height + " y=" + y + " startY=" + startY + (hasWallsSameHeight ? " same" : "") + (isFloor ? " floor" : "");
+    }
+
+    /**
+     * The areas as found by TengstrandBoardEvaluator141.evaluateBasedOnOutlineStructure before OutlineAreas.
+     */
+    private List<String> scan(BoardOutline outline, int boardWidth, int boardHeight) {
+        List<String> areas = new ArrayList<>();
+
+        for (int x=1; x<=boardWidth; x++) {
+            boolean hasAreaWallsSameHeight = false;
+            boolean isAreaWallsSameHeightNotInitialized = true;
+            int areaHeight = 0;
+            int previousAreaWidth = 0;
+
+            int rightWallY = outline.get(x);
+            int startY = (x == boardWidth) ? outline.minY : outline.get(x);
+
+            boolean isFloor = true;
+            int floor = outline.get(x-1);
+            for (int areaX=x-1; areaX>=0; areaX--) {
+                isFloor = isFloor && outline.get(areaX) == floor;
+            }
+
+            for (int y=startY; y<=boardHeight; y++) {
+                int areaWidth = 0;
+
+                for (int areaX=x-1; areaX>=0; areaX--) {
+                    if (outline.get(areaX) <= y) {
+                        if (isAreaWallsSameHeightNotInitialized) {
+                            hasAreaWallsSameHeight = outline.get(areaX) == rightWallY;
+                            isAreaWallsSameHeightNotInitialized = false;
+                        }
+                        break;
+                    }
+                    areaWidth++;
+                }
+                if (areaWidth == 0 && previousAreaWidth == 0) {
+                    break;
+                } else {
+                    if (areaWidth > 0 && (areaWidth == previousAreaWidth || previousAreaWidth == 0)) {
+                        areaHeight++;
+                    } else {
+                        areas.add(area(previousAreaWidth, areaHeight, y - areaHeight, startY, hasAreaWallsSameHeight, isFloor));
+                        areaHeight = 1;
+                        isAreaWallsSameHeightNotInitialized = true;
+                    }
+                    previousAreaWidth = areaWidth;
+                }
+            }
+        }
+        return areas;
+    }
+}
@@ -0,0 +1,124 @@
+package test.java.com.github.tetrisanalyzer.board;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.PackedBoard;
+import com.github.tetrisanalyzer.move.Move;
+import com.github.tetrisanalyzer.move.ValidMoves;
+import com.github.tetrisanalyzer.piece.Piece;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.PieceMove;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.tetrisanalyzer.piece.Piece.createPieceI;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PackedBoardTest {
+
+    @Test
+    public void isFree_sameAsBoard() {
+        Board board = board();
+        PackedBoard packedBoard = PackedBoard.create(board);
+
+        assertTrue(packedBoard.isPacked());
+        assertSameFreeMoves(board, packedBoard);
+    }
+
+    @Test
+    public void setPieceAndClearRows() {
+        Board board = board();
+        PackedBoard packedBoard = PackedBoard.create(board);
+        GameSettings settings = new AtariGameSettings(board);
+        PieceMove pieceMove = new PieceMove(createPieceI(settings), new Move(1, 9, 7));
+
+        assertEquals(2, pieceMove.setPiece(board));
+        assertEquals(2, pieceMove.setPiece(packedBoard));
+
+        assertEquals(board, packedBoard);
+        assertSameFreeMoves(board, packedBoard);
+    }
+
+    @Test
+    public void makeAndUnmakeMove() {
+        Board board = board();
+        PackedBoard packedBoard = PackedBoard.create(board);
+        GameSettings settings = new AtariGameSettings(board);
+        PieceMove pieceMove = new PieceMove(createPieceI(settings), new Move(1, 9, 7));
+
+        pieceMove.makeMove(packedBoard);
+        pieceMove.unmakeMove(packedBoard);
+
+        assertEquals(board, packedBoard);
+        assertSameFreeMoves(board, packedBoard);
+    }
+
+    @Test
+    public void copy() {
+        PackedBoard packedBoard = PackedBoard.create(board());
+        PackedBoard copy = packedBoard.copy();
+        copy.setBits(0, 1);
+
+        assertTrue(packedBoard.isFree(0, 0));
+        assertSameFreeMoves(copy, copy.copy());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooWide() {
+        PackedBoard.create(Board.create(17, 20));
+    }
+
+    private void assertSameFreeMoves(Board board, Board packedBoard) {
+        GameSettings settings = new AtariGameSettings(board);
+        AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(board.width, board.height, settings);
+
+        for (Piece piece : Piece.pieces(settings)) {
+            PieceMove startMove = allValidPieceMoves.startMoveForPiece(piece);
+
+            for (PieceMove pieceMove : allPieceMoves(startMove)) {
+                assertEquals(pieceMove.toString(), pieceMove.isFree(board), pieceMove.isFree(packedBoard));
+                assertEquals(pieceMove.toString(), pieceMove.canMoveDown(board), pieceMove.canMoveDown(packedBoard));
+            }
+            assertEquals(new ValidMoves().pieceMoves(startMove, board),
+                    new ValidMoves().pieceMoves(startMove, packedBoard));
+        }
+    }
+
+    private List<PieceMove> allPieceMoves(PieceMove startMove) {
+        Map<PieceMove, Boolean> visited = new IdentityHashMap<>();
+        List<PieceMove> stack = new ArrayList<>();
+        stack.add(startMove);
+
+        while (!stack.isEmpty()) {
+            PieceMove pieceMove = stack.remove(stack.size() - 1);
+            if (pieceMove != null && visited.put(pieceMove, true) == null) {
+                stack.add(pieceMove.down);
+                stack.addAll(pieceMove.asideAndRotate);
+            }
+        }
+        return new ArrayList<>(visited.keySet());
+    }
+
+    private Board board() {
+        return Board.create(
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----x-----|",
+                "|---xx-----|",
+                "|x--xxx---x|",
+                "|xx-xxxx-x-|",
+                "|xxxxx-xxx-|",
+                "|xx-xxxxxx-|",
+                "|xxxxxxxxx-|",
+                "|xxxxxxxxx-|",
+                "|-xxxxxxxxx|",
+                "============");
+    }
+}
@@ -0,0 +1,47 @@
+package test.java.com.github.tetrisanalyzer.board;
+
+import com.github.tetrisanalyzer.board.Board;
+
+import java.util.Random;
+
+/**
+ * Creates random boards for the tests and benchmarks.
+ */
+public class RandomBoards {
+
+    /**
+     * Returns a board where the rows from 'fromY' to the bottom are random rows (see randomRow)
+     * and the rows above are free.
+     */
+    public static Board randomBoard(Random random, int width, int height, int fromY) {
+        return randomBoard(random, width, height, fromY, 0.5);
+    }
+
+    /**
+     * Same as randomBoard above, where each cell of the random rows is occupied
+     * with the probability 'density'.
+     */
+    public static Board randomBoard(Random random, int width, int height, int fromY, double density) {
+        Board board = Board.create(width, height);
+        for (int y=fromY; y<height; y++) {
+            board.setBits(y, randomRow(random, width, density));
+        }
+        return board;
+    }
+
+    /**
+     * Returns a row with at least one free and one occupied cell, where each of the other cells
+     * is occupied with the probability 'density'.
+     */
+    public static long randomRow(Random random, int width, double density) {
+        long row = 0;
+        for (int x=0; x<width; x++) {
+            if (random.nextDouble() < density) {
+                row |= 1L << x;
+            }
+        }
+        int free = random.nextInt(width);
+        int occupied = (free + 1 + random.nextInt(width - 1)) % width;
+        return (row | 1L << occupied) & ~(1L << free);
+    }
+}
@@ -0,0 +1,55 @@
+package test.java.com.github.tetrisanalyzer.board;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.BoardOutline;
+import com.github.tetrisanalyzer.board.RowPatterns;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RowPatternsTest {
+
+    @Test
+    public void freeCellFactors() {
+        double[] factors = { 0, 0.46, 0.51, 0.5, 0.4 };
+        double[] rowFactors = RowPatterns.freeCellFactors(5, factors);
+
+        assertEquals(32, rowFactors.length);
+        assertEquals(0, rowFactors[0b11111], 0);
+        assertEquals(0.46, rowFactors[0b11011], 0);
+        assertEquals(0.51, rowFactors[0b01110], 0);
+        assertEquals(0.4, rowFactors[0b00001], 0);
+        assertTrue(Double.isNaN(rowFactors[0]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void freeCellFactors_tooWide() {
+        RowPatterns.freeCellFactors(RowPatterns.MAX_WIDTH + 1, new double[RowPatterns.MAX_WIDTH + 1]);
+    }
+
+    @Test
+    public void freeCellFactorsIfNarrow() {
+        assertEquals(1 << RowPatterns.MAX_WIDTH, RowPatterns.freeCellFactorsIfNarrow(RowPatterns.MAX_WIDTH, new double[5]).length);
+        assertNull(RowPatterns.freeCellFactorsIfNarrow(RowPatterns.MAX_WIDTH + 1, new double[5]));
+    }
+
+    @Test
+    public void hollowEquity() {
+        Board board = Board.create(
+                "|----|",
+                "|----|",
+                "|xx-x|",
+                "|x-xx|",
+                "======");
+        BoardOutline outline = new BoardOutline(board);
+        double[] rowFactors = RowPatterns.freeCellFactors(4, new double[] { 0, 0.5, 0.25, 0.1, 0.1 });
+        double[] heightFactors = { 1, 1, 1, 2, 1 };
+
+        // The hole in the bottom row is covered by the row above: (1 - 0.5 * 0.5) * 4
+        assertEquals(3, RowPatterns.hollowEquity(board, outline, 4, rowFactors, new double[4]), 0);
+        // (1 - 0.5 * 0.5 * 0.5) * 4 * 2
+        assertEquals(7, RowPatterns.hollowEquity(board, outline, 4, rowFactors, 0.5, heightFactors, new double[4]), 0);
+    }
+}
@@ -0,0 +1,68 @@
+package test.java.com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.boardevaluator.*;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static test.java.com.github.tetrisanalyzer.board.RandomBoards.randomBoard;
+import static test.java.com.github.tetrisanalyzer.boardevaluator.BoardEvaluators.allEvaluators;
+
+public class BoardEvaluatorMirrorTest {
+    private static final int WIDTH = 10;
+    private static final int HEIGHT = 20;
+
+    private final GameSettings settings = new AtariGameSettings(WIDTH);
+    private final AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(Board.create(WIDTH, HEIGHT), settings);
+
+    private final BoardEvaluator[] evaluators = allEvaluators(WIDTH, HEIGHT, settings);
+
+    /**
+     * An evaluator that reports that it is mirror symmetric must give a board and its mirror image
+     * the same equity, and the others must give different equities to at least one of the boards.
+     */
+    @Test
+    public void mirroredBoards() {
+        for (BoardEvaluator evaluator : evaluators) {
+            Random random = new Random(1);
+            boolean sameEquities = true;
+
+            for (int i=0; i<100; i++) {
+                // Keep the start positions free, so that the start move adjustment doesn't affect the equity.
+                Board board = randomBoard(random, WIDTH, HEIGHT, HEIGHT / 2 + random.nextInt(HEIGHT / 2));
+                double equity = evaluator.evaluate(board, allValidPieceMoves);
+                double mirroredEquity = evaluator.evaluate(mirror(board), allValidPieceMoves);
+
+                if (evaluator.isMirrorSymmetric()) {
+                    assertEquals(evaluator.getClass().getSimpleName(), equity, mirroredEquity, 0);
+                }
+                sameEquities &= equity == mirroredEquity;
+            }
+            assertEquals(evaluator.getClass().getSimpleName(), evaluator.isMirrorSymmetric(), sameEquities);
+        }
+    }
+
+    @Test
+    public void cachingEvaluator() {
+        BoardEvaluator linear = new LinearFeatureBoardEvaluator(WIDTH, HEIGHT, settings);
+        BoardEvaluator tengstrand = new TengstrandBoardEvaluator141(WIDTH, HEIGHT, settings);
+
+        assertTrue(new CachingBoardEvaluator(linear, 16, CachingBoardEvaluator.Eviction.SECOND_CHANCE).isMirrorSymmetric());
+        assertFalse(new CachingBoardEvaluator(tengstrand, 16, CachingBoardEvaluator.Eviction.SECOND_CHANCE).isMirrorSymmetric());
+    }
+
+    private Board mirror(Board board) {
+        Board mirrored = Board.create(board.width, board.height);
+        for (int y=0; y<board.height; y++) {
+            mirrored.setBits(y, Long.reverse(board.rowCells(y)) >>> (64 - board.width));
+        }
+        return mirrored;
+    }
+}
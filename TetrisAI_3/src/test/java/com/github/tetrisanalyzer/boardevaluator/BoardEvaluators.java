@@ -0,0 +1,28 @@
+package test.java.com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.boardevaluator.*;
+import com.github.tetrisanalyzer.settings.GameSettings;
+
+/**
+ * Creates the board evaluators for the tests.
+ */
+public class BoardEvaluators {
+
+    /**
+     * Returns a new instance of each board evaluator in system.yaml, with the default parameters.
+     */
+    public static BoardEvaluator[] allEvaluators(int width, int height, GameSettings settings) {
+        return new BoardEvaluator[] {
+                new TengstrandBoardEvaluator12(width, height, settings),
+                new TengstrandBoardEvaluator13(width, height, settings),
+                new TengstrandBoardEvaluator131(width, height, settings),
+                new TengstrandBoardEvaluator132(width, height, settings),
+                new TengstrandBoardEvaluator133(width, height, settings),
+                new TengstrandBoardEvaluator14(width, height, settings),
+                new TengstrandBoardEvaluator141(width, height, settings),
+                new TengstrandBoardEvaluator1411(width, height, settings),
+                new TengstrandBoardEvaluator15(width, height, settings),
+                new TengstrandBoardEvaluator20(width, height, settings),
+                new LinearFeatureBoardEvaluator(width, height, settings) };
+    }
+}
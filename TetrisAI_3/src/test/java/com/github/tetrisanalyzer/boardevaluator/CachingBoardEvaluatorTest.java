@@ -0,0 +1,177 @@
+package test.java.com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.boardevaluator.BoardEvaluator;
+import com.github.tetrisanalyzer.boardevaluator.CachingBoardEvaluator;
+import com.github.tetrisanalyzer.boardevaluator.EvaluationState;
+import com.github.tetrisanalyzer.boardevaluator.IncrementalBoardEvaluator;
+import com.github.tetrisanalyzer.boardevaluator.TengstrandBoardEvaluator141;
+import com.github.tetrisanalyzer.move.ValidMoves;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.PieceMove;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.github.tetrisanalyzer.boardevaluator.CachingBoardEvaluator.Eviction.REPLACE;
+import static com.github.tetrisanalyzer.piece.Piece.createPieceT;
+import static com.github.tetrisanalyzer.boardevaluator.CachingBoardEvaluator.Eviction.SECOND_CHANCE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CachingBoardEvaluatorTest {
+    private final GameSettings settings = new AtariGameSettings(10);
+    private final AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(Board.create(10, 20), settings);
+
+    @Test
+    public void sameEquityAsWrappedEvaluator() {
+        BoardEvaluator evaluator = new TengstrandBoardEvaluator141(10, 20, settings);
+        CachingBoardEvaluator cachingEvaluator = new CachingBoardEvaluator(evaluator, 1024, SECOND_CHANCE);
+
+        for (int i=0; i<3; i++) {
+            for (Board board : boards(10)) {
+                assertEquals(evaluator.evaluate(board, allValidPieceMoves), cachingEvaluator.evaluate(board, allValidPieceMoves), 0);
+            }
+        }
+        assertEquals(20, cachingEvaluator.hits());
+        assertEquals(10, cachingEvaluator.misses());
+        assertEquals(evaluator.maxEquity(), cachingEvaluator.maxEquity(), 0);
+        assertEquals(evaluator.parameters(), cachingEvaluator.parameters());
+    }
+
+    @Test
+    public void secondChance_keepsHitBoard() {
+        CountingEvaluator evaluator = new CountingEvaluator();
+        CachingBoardEvaluator cachingEvaluator = new CachingBoardEvaluator(evaluator, 4, SECOND_CHANCE);
+        Board[] boards = boards(5);
+
+        for (int i=0; i<4; i++) {
+            cachingEvaluator.evaluate(boards[i], allValidPieceMoves);
+        }
+        cachingEvaluator.evaluate(boards[0], allValidPieceMoves);
+        cachingEvaluator.evaluate(boards[4], allValidPieceMoves);
+        cachingEvaluator.evaluate(boards[0], allValidPieceMoves);
+
+        assertEquals(5, evaluator.evaluations);
+        assertEquals(2, cachingEvaluator.hits());
+    }
+
+    @Test
+    public void replace_evictsWhenFull() {
+        CountingEvaluator evaluator = new CountingEvaluator();
+        CachingBoardEvaluator cachingEvaluator = new CachingBoardEvaluator(evaluator, 4, REPLACE);
+        Board[] boards = boards(5);
+
+        for (Board board : boards) {
+            cachingEvaluator.evaluate(board, allValidPieceMoves);
+        }
+        for (Board board : boards) {
+            cachingEvaluator.evaluate(board, allValidPieceMoves);
+        }
+        // The fifth board replaced one of the others, so at least one board is evaluated again.
+        assertEquals(4, cachingEvaluator.capacity());
+        assertEquals(10, cachingEvaluator.hits() + cachingEvaluator.misses());
+        assertTrue(cachingEvaluator.misses() > 5);
+    }
+
+    @Test
+    public void mirrorSymmetry_mirroredBoardHits() {
+        CountingEvaluator evaluator = new CountingEvaluator();
+        CachingBoardEvaluator cachingEvaluator = new CachingBoardEvaluator(evaluator, 4, SECOND_CHANCE, true);
+        Board[] boards = boards(10);
+
+        // The occupied cell of the last board is in the mirrored column of the first.
+        cachingEvaluator.evaluate(boards[0], allValidPieceMoves);
+        cachingEvaluator.evaluate(boards[9], allValidPieceMoves);
+
+        assertEquals(1, evaluator.evaluations);
+        assertEquals(1, cachingEvaluator.hits());
+    }
+
+    @Test
+    public void noMirrorSymmetry_mirroredBoardMisses() {
+        CountingEvaluator evaluator = new CountingEvaluator();
+        CachingBoardEvaluator cachingEvaluator = new CachingBoardEvaluator(evaluator, 4, SECOND_CHANCE);
+        Board[] boards = boards(10);
+
+        cachingEvaluator.evaluate(boards[0], allValidPieceMoves);
+        cachingEvaluator.evaluate(boards[9], allValidPieceMoves);
+
+        assertEquals(2, evaluator.evaluations);
+        assertEquals(0, cachingEvaluator.hits());
+    }
+
+    @Test
+    public void create_keepsIncrementalEvaluation() {
+        assertFalse(CachingBoardEvaluator.create(new CountingEvaluator(), 16, SECOND_CHANCE, false) instanceof IncrementalBoardEvaluator);
+        assertTrue(CachingBoardEvaluator.create(new TengstrandBoardEvaluator141(10, 20, settings), 16, SECOND_CHANCE, false) instanceof IncrementalBoardEvaluator);
+    }
+
+    @Test
+    public void incremental_looksUpBeforeEvaluating() {
+        TengstrandBoardEvaluator141 evaluator = new TengstrandBoardEvaluator141(10, 20, settings);
+        IncrementalBoardEvaluator cachingEvaluator = (IncrementalBoardEvaluator)CachingBoardEvaluator.create(evaluator, 1024, SECOND_CHANCE, false);
+        Board parent = Board.create(10, 20);
+        EvaluationState parentState = new EvaluationState();
+        cachingEvaluator.evaluate(parent, allValidPieceMoves, parentState);
+        List<PieceMove> pieceMoves = new ValidMoves().pieceMoves(allValidPieceMoves.startMoveForPiece(createPieceT(settings)), parent);
+
+        for (int i=0; i<2; i++) {
+            for (PieceMove pieceMove : pieceMoves) {
+                Board board = parent.copy();
+                int clearedRows = pieceMove.makeMove(board);
+                double equity = cachingEvaluator.evaluate(board, allValidPieceMoves, parentState, pieceMove, clearedRows, new EvaluationState());
+
+                assertEquals(evaluator.evaluate(board, allValidPieceMoves), equity, 0);
+            }
+        }
+        assertEquals(pieceMoves.size(), ((CachingBoardEvaluator)cachingEvaluator).hits());
+        assertEquals(pieceMoves.size(), ((CachingBoardEvaluator)cachingEvaluator).misses());
+    }
+
+    @Test
+    public void evictionFromName() {
+        assertEquals(REPLACE, CachingBoardEvaluator.Eviction.fromName("replace"));
+        assertEquals(SECOND_CHANCE, CachingBoardEvaluator.Eviction.fromName("second chance"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownEviction() {
+        CachingBoardEvaluator.Eviction.fromName("lru");
+    }
+
+    /**
+     * Returns boards with one occupied cell each, in different columns of the bottom row.
+     */
+    private Board[] boards(int count) {
+        Board[] boards = new Board[count];
+        for (int i=0; i<count; i++) {
+            boards[i] = Board.create(10, 20);
+            boards[i].setBits(19, 1L << i);
+        }
+        return boards;
+    }
+
+    private static class CountingEvaluator implements BoardEvaluator {
+        int evaluations;
+
+        @Override
+        public double maxEquity() {
+            return 100;
+        }
+
+        @Override
+        public double evaluate(Board board, AllValidPieceMoves allValidPieceMoves) {
+            return ++evaluations;
+        }
+
+        @Override
+        public Map<String, String> parameters() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package test.java.com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.boardevaluator.*;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static test.java.com.github.tetrisanalyzer.Allocations.allocatedBytes;
+import static test.java.com.github.tetrisanalyzer.board.RandomBoards.randomBoard;
+import static test.java.com.github.tetrisanalyzer.boardevaluator.BoardEvaluators.allEvaluators;
+
+public class EvaluationContextTest {
+    private double totalEquity;
+
+    @Test
+    public void evaluateAllocatesNothing() {
+        Board board = Board.create(
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----x-----|",
+                "|---xx-----|",
+                "|x--xxx---x|",
+                "|xx-x-xx-xx|",
+                "============");
+        BoardEvaluator[] evaluators = evaluators(board.width, board.height);
+        AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(board, new AtariGameSettings(board));
+
+        // The first calls allocate the buffers of the thread.
+        double equity = evaluate(evaluators, board, allValidPieceMoves);
+        long allocatedBytes = allocatedBytes(1000, () -> totalEquity += evaluate(evaluators, board, allValidPieceMoves));
+
+        // Allow less than one byte per call, where new buffers per call would allocate hundreds of bytes.
+        assertEquals(1000 * equity, totalEquity, 1e-6);
+        assertTrue("Allocated bytes: " + allocatedBytes, allocatedBytes < 1000 * evaluators.length);
+    }
+
+    /**
+     * The buffers are reused between boards of different sizes, which must not change the equity.
+     */
+    @Test
+    public void sameEquityForDifferentBoardSizes() {
+        Random random = new Random(1);
+        int[][] sizes = { { 10, 20 }, { 6, 8 }, { 12, 40 }, { 4, 4 }, { 10, 20 } };
+        Board[] boards = new Board[sizes.length];
+        double[][] equities = new double[sizes.length][];
+
+        for (int i=0; i<sizes.length; i++) {
+            int width = sizes[i][0];
+            int height = sizes[i][1];
+            boards[i] = randomBoard(random, width, height, random.nextInt(height));
+            equities[i] = equities(evaluators(width, height), boards[i]);
+        }
+        for (int i=sizes.length - 1; i>=0; i--) {
+            assertArrayEquals(equities[i], equities(evaluators(sizes[i][0], sizes[i][1]), boards[i]), 0);
+        }
+    }
+
+    private BoardEvaluator[] evaluators(int width, int height) {
+        return allEvaluators(width, height, new AtariGameSettings(width));
+    }
+
+    private double evaluate(BoardEvaluator[] evaluators, Board board, AllValidPieceMoves allValidPieceMoves) {
+        double equity = 0;
+        for (BoardEvaluator evaluator : evaluators) {
+            equity += evaluator.evaluate(board, allValidPieceMoves);
+        }
+        return equity;
+    }
+
+    private double[] equities(BoardEvaluator[] evaluators, Board board) {
+        AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(board, new AtariGameSettings(board));
+        double[] equities = new double[evaluators.length];
+        for (int i=0; i<evaluators.length; i++) {
+            equities[i] = evaluators[i].evaluate(board, allValidPieceMoves);
+        }
+        return equities;
+    }
+}
@@ -0,0 +1,106 @@
+package test.java.com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.boardevaluator.EvaluationState;
+import com.github.tetrisanalyzer.boardevaluator.TengstrandBoardEvaluator141;
+import com.github.tetrisanalyzer.move.ValidMoves;
+import com.github.tetrisanalyzer.piece.Piece;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.PieceMove;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static test.java.com.github.tetrisanalyzer.board.RandomBoards.randomBoard;
+
+/**
+ * Compares evaluating the candidate boards of a position from scratch with evaluating them
+ * incrementally from the features of the position (IncrementalBoardEvaluator), with TengstrandBoardEvaluator141.
+ * The candidates are the boards after each valid move of a piece on partly filled boards.
+ *
+ * Not a unit test, run it from the IDE (main method).
+ * Pass the board width and height as arguments (default 10 20).
+ */
+public class IncrementalEvaluationBenchmark {
+    private static final int ROUNDS = 10;
+    private static final int POSITIONS = 200;
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        GameSettings settings = new AtariGameSettings(width);
+        AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(Board.create(width, height), settings);
+        TengstrandBoardEvaluator141 evaluator = new TengstrandBoardEvaluator141(width, height, settings);
+        List<Position> positions = positions(width, height, settings, allValidPieceMoves);
+        EvaluationState childState = new EvaluationState();
+        int boards = 0;
+        for (Position position : positions) {
+            boards += position.children.length;
+        }
+
+        for (int round=1; round<=ROUNDS; round++) {
+            double checksum1 = 0;
+            long start = System.nanoTime();
+            for (int i=0; i<ITERATIONS; i++) {
+                for (Position position : positions) {
+                    for (Board child : position.children) {
+                        checksum1 += evaluator.evaluate(child, allValidPieceMoves);
+                    }
+                }
+            }
+            long full = System.nanoTime() - start;
+
+            double checksum2 = 0;
+            start = System.nanoTime();
+            for (int i=0; i<ITERATIONS; i++) {
+                for (Position position : positions) {
+                    for (int j=0; j<position.children.length; j++) {
+                        checksum2 += evaluator.evaluate(position.children[j], allValidPieceMoves, position.state,
+                                position.pieceMoves.get(j), position.clearedRows[j], childState);
+                    }
+                }
+            }
+            long incremental = System.nanoTime() - start;
+
+            System.out.printf("round %2d: full %.1f ns/board, incremental %.1f ns/board%s%n", round,
+                    (double)full / (ITERATIONS * boards), (double)incremental / (ITERATIONS * boards),
+                    checksum1 == checksum2 ? "" : " (different equities!)");
+        }
+    }
+
+    private static class Position {
+        EvaluationState state = new EvaluationState();
+        List<PieceMove> pieceMoves;
+        Board[] children;
+        int[] clearedRows;
+    }
+
+    private static List<Position> positions(int width, int height, GameSettings settings, AllValidPieceMoves allValidPieceMoves) {
+        Random random = new Random(1);
+        ValidMoves validMoves = new ValidMoves();
+        Piece[] pieces = Piece.pieces(settings);
+        TengstrandBoardEvaluator141 evaluator = new TengstrandBoardEvaluator141(width, height, settings);
+        List<Position> positions = new ArrayList<>();
+
+        for (int i=0; i<POSITIONS; i++) {
+            Board board = randomBoard(random, width, height, height / 2 + random.nextInt(height / 2));
+            Position position = new Position();
+            evaluator.evaluate(board, allValidPieceMoves, position.state);
+            Piece piece = pieces[random.nextInt(pieces.length)];
+            position.pieceMoves = new ArrayList<>(validMoves.pieceMoves(allValidPieceMoves.startMoveForPiece(piece), board));
+            position.children = new Board[position.pieceMoves.size()];
+            position.clearedRows = new int[position.children.length];
+
+            for (int j=0; j<position.children.length; j++) {
+                position.children[j] = board.copy();
+                position.clearedRows[j] = position.pieceMoves.get(j).makeMove(position.children[j]);
+            }
+            positions.add(position);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,123 @@
+package test.java.com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.boardevaluator.LinearFeatureBoardEvaluator;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class LinearFeatureBoardEvaluatorTest {
+    private final Board board = Board.create(
+            "|----------|",
+            "|-x--------|",
+            "|-x-x---x--|",
+            "|xx-xx-x-x-|",
+            "============");
+
+    @Test
+    public void aggregateHeight() {
+        LinearFeatureBoardEvaluator evaluator = evaluator();
+        evaluator.aggregateHeightFactor = 1;
+
+        assertEquals(1+3+0+2+1+0+1+2+1+0, evaluator.evaluate(board), 0);
+    }
+
+    @Test
+    public void holes() {
+        LinearFeatureBoardEvaluator evaluator = evaluator();
+        evaluator.holeFactor = 1;
+
+        assertEquals(1, evaluator.evaluate(board), 0);
+    }
+
+    @Test
+    public void bumpiness() {
+        LinearFeatureBoardEvaluator evaluator = evaluator();
+        evaluator.bumpinessFactor = 1;
+
+        assertEquals(2+3+2+1+1+1+1+1+1, evaluator.evaluate(board), 0);
+    }
+
+    @Test
+    public void rowTransitions() {
+        LinearFeatureBoardEvaluator evaluator = evaluator();
+        evaluator.rowTransitionFactor = 1;
+
+        assertEquals(4+8+8, evaluator.evaluate(board), 0);
+    }
+
+    @Test
+    public void columnTransitions() {
+        LinearFeatureBoardEvaluator evaluator = evaluator();
+        evaluator.columnTransitionFactor = 1;
+
+        assertEquals(1+1+1+1+1+1+1+3+1+1, evaluator.evaluate(board), 0);
+    }
+
+    @Test
+    public void wells() {
+        LinearFeatureBoardEvaluator evaluator = evaluator();
+        evaluator.wellFactor = 1;
+
+        assertEquals(1+2+3, evaluator.evaluate(board), 0);
+    }
+
+    @Test
+    public void emptyBoard() {
+        LinearFeatureBoardEvaluator evaluator = new LinearFeatureBoardEvaluator(10, 20, new AtariGameSettings(10));
+
+        // The floor gives one column transition per column.
+        assertEquals(10 * evaluator.columnTransitionFactor, evaluator.evaluate(Board.create(10, 20)), 0);
+    }
+
+    @Test
+    public void fullWidth() {
+        Board board = Board.create(64, 8);
+        board.setBits(7, -1L >>> 1);
+        LinearFeatureBoardEvaluator evaluator = new LinearFeatureBoardEvaluator(64, 8, new AtariGameSettings(64));
+        evaluator.aggregateHeightFactor = 0;
+        evaluator.bumpinessFactor = 0;
+        evaluator.rowTransitionFactor = 0;
+        evaluator.columnTransitionFactor = 0;
+
+        // A well in the rightmost column.
+        assertEquals(evaluator.wellFactor, evaluator.evaluate(board), 0);
+    }
+
+    @Test
+    public void readSettings() {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("id", "Linear");
+        settings.put("description", "Linear features");
+        settings.put("author", "-");
+        settings.put("url", "-");
+        settings.put("class", LinearFeatureBoardEvaluator.class.getName());
+        settings.put("maxEquityFactor", "1.5");
+        settings.put("aggregateHeightFactor", "1");
+        settings.put("holeFactor", "2");
+        settings.put("bumpinessFactor", "3");
+        settings.put("rowTransitionFactor", "4");
+        settings.put("columnTransitionFactor", "5");
+        settings.put("wellFactor", "6");
+
+        LinearFeatureBoardEvaluator evaluator = new LinearFeatureBoardEvaluator(10, 4, new AtariGameSettings(10), settings);
+
+        assertEquals(1*11 + 2*1 + 3*13 + 4*20 + 5*12 + 6*6, evaluator.evaluate(board), 0);
+        assertEquals("6.0", evaluator.parameters().get("wellFactor"));
+    }
+
+    private LinearFeatureBoardEvaluator evaluator() {
+        LinearFeatureBoardEvaluator evaluator = new LinearFeatureBoardEvaluator(10, 4, new AtariGameSettings(10));
+        evaluator.aggregateHeightFactor = 0;
+        evaluator.holeFactor = 0;
+        evaluator.bumpinessFactor = 0;
+        evaluator.rowTransitionFactor = 0;
+        evaluator.columnTransitionFactor = 0;
+        evaluator.wellFactor = 0;
+        return evaluator;
+    }
+}
@@ -0,0 +1,67 @@
+package test.java.com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.boardevaluator.*;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+
+import java.util.Random;
+
+import static test.java.com.github.tetrisanalyzer.board.RandomBoards.randomBoard;
+
+/**
+ * Compares the evaluations per second of TengstrandBoardEvaluator14 with the row pattern path
+ * of the hollows and with the cell by cell path (rowHollowFactors = null), on partly filled boards.
+ *
+ * Not a unit test, run it from the IDE (main method).
+ * Pass the board width and height as arguments (default 10 20).
+ */
+public class RowPatternBenchmark {
+    private static final int ROUNDS = 10;
+    private static final int BOARDS = 2000;
+    private static final int ITERATIONS = 50;
+
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        GameSettings settings = new AtariGameSettings(width);
+        TengstrandBoardEvaluator14 rowPatterns = new TengstrandBoardEvaluator14(width, height, settings);
+        TengstrandBoardEvaluator14 cellByCell = new TengstrandBoardEvaluator14(width, height, settings);
+        cellByCell.rowHollowFactors = null;
+        Board[] boards = boards(width, height);
+
+        for (int round=1; round<=ROUNDS; round++) {
+            double checksum1 = 0;
+            long start = System.nanoTime();
+            for (int i=0; i<ITERATIONS; i++) {
+                for (Board board : boards) {
+                    checksum1 += cellByCell.evaluate(board);
+                }
+            }
+            long cellByCellNanos = System.nanoTime() - start;
+
+            double checksum2 = 0;
+            start = System.nanoTime();
+            for (int i=0; i<ITERATIONS; i++) {
+                for (Board board : boards) {
+                    checksum2 += rowPatterns.evaluate(board);
+                }
+            }
+            long rowPatternNanos = System.nanoTime() - start;
+
+            System.out.printf("round %2d: cell by cell %.0f, row patterns %.0f evaluations/s%s%n", round,
+                    ITERATIONS * BOARDS * 1e9 / cellByCellNanos, ITERATIONS * BOARDS * 1e9 / rowPatternNanos,
+                    checksum1 == checksum2 ? "" : " (different equities!)");
+        }
+    }
+
+    private static Board[] boards(int width, int height) {
+        Random random = new Random(1);
+        Board[] boards = new Board[BOARDS];
+
+        for (int i=0; i<BOARDS; i++) {
+            boards[i] = randomBoard(random, width, height, height / 2 + random.nextInt(height / 2));
+        }
+        return boards;
+    }
+}
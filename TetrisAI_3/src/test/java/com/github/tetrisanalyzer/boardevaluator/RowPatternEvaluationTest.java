@@ -0,0 +1,82 @@
+package test.java.com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.boardevaluator.*;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static test.java.com.github.tetrisanalyzer.board.RandomBoards.randomBoard;
+import static test.java.com.github.tetrisanalyzer.boardevaluator.BoardEvaluators.allEvaluators;
+
+/**
+ * Compares the row pattern path of the hollows of the evaluators that have one
+ * with the cell by cell path (used when rowHollowFactors is null).
+ */
+public class RowPatternEvaluationTest {
+
+    @Test
+    public void sameAsCellByCell() throws Exception {
+        Random random = new Random(1);
+        int[][] sizes = { { 10, 20 }, { 4, 8 }, { 12, 40 } };
+
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            GameSettings settings = new AtariGameSettings(width);
+            AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(Board.create(width, height), settings);
+            List<BoardEvaluator> evaluators = new ArrayList<>();
+            List<BoardEvaluator> cellByCellEvaluators = new ArrayList<>();
+
+            for (BoardEvaluator cellByCell : allEvaluators(width, height, settings)) {
+                Field rowHollowFactors = rowHollowFactors(cellByCell);
+                if (rowHollowFactors != null) {
+                    Constructor<? extends BoardEvaluator> constructor = cellByCell.getClass().getConstructor(int.class, int.class, GameSettings.class);
+                    evaluators.add(constructor.newInstance(width, height, settings));
+                    rowHollowFactors.set(cellByCell, null);
+                    cellByCellEvaluators.add(cellByCell);
+                }
+            }
+            // Tengstrand 1.2, 1.3, 1.3.1, 1.3.2, 1.3.3 and 1.4.
+            assertEquals(6, evaluators.size());
+
+            for (int i=0; i<1000; i++) {
+                Board board = randomBoard(random, width, height, random.nextInt(height));
+                for (int j=0; j<evaluators.size(); j++) {
+                    BoardEvaluator evaluator = evaluators.get(j);
+                    assertEquals(evaluator.getClass().getSimpleName(),
+                            cellByCellEvaluators.get(j).evaluate(board, allValidPieceMoves), evaluator.evaluate(board, allValidPieceMoves), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void onlyForNarrowBoards() {
+        GameSettings settings = new AtariGameSettings(12);
+
+        assertNotNull(new TengstrandBoardEvaluator12(12, 20, settings).rowHollowFactors);
+        assertNull(new TengstrandBoardEvaluator12(13, 20, new AtariGameSettings(13)).rowHollowFactors);
+    }
+
+    /**
+     * Returns the rowHollowFactors field of the evaluator, or null if it has none.
+     */
+    private Field rowHollowFactors(BoardEvaluator evaluator) {
+        try {
+            return evaluator.getClass().getField("rowHollowFactors");
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
+}
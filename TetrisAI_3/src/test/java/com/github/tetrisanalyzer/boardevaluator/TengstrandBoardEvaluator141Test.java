@@ -0,0 +1,103 @@
+package test.java.com.github.tetrisanalyzer.boardevaluator;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.boardevaluator.*;
+import com.github.tetrisanalyzer.move.ValidMoves;
+import com.github.tetrisanalyzer.piece.Piece;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.PieceMove;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static test.java.com.github.tetrisanalyzer.board.RandomBoards.randomBoard;
+
+public class TengstrandBoardEvaluator141Test {
+
+    @Test
+    public void evaluateIncremental_sameAsFull() {
+        Random random = new Random(1);
+        int[][] sizes = { { 10, 20 }, { 6, 8 }, { 12, 40 }, { 32, 63 }, { 20, 80 } };
+        ValidMoves validMoves = new ValidMoves();
+
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            GameSettings settings = new AtariGameSettings(width);
+            AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(Board.create(width, height), settings);
+            TengstrandBoardEvaluator141 evaluator = new TengstrandBoardEvaluator141(width, height, settings);
+            Piece[] pieces = Piece.pieces(settings);
+
+            for (int i=0; i<20; i++) {
+                Board board = randomBoard(random, width, height, height / 2 + random.nextInt(height / 2));
+                EvaluationState state = new EvaluationState();
+                assertEquals(evaluator.evaluate(board, allValidPieceMoves), evaluator.evaluate(board, allValidPieceMoves, state), 0);
+
+                // Play random moves, where the state of the next board is the one calculated incrementally.
+                for (int move=0; move<30; move++) {
+                    Piece piece = pieces[random.nextInt(pieces.length)];
+                    List<PieceMove> pieceMoves = validMoves.pieceMoves(allValidPieceMoves.startMoveForPiece(piece), board);
+                    if (pieceMoves.isEmpty()) {
+                        break;
+                    }
+                    EvaluationState nextState = null;
+                    Board nextBoard = null;
+                    int next = random.nextInt(pieceMoves.size());
+
+                    for (int j=0; j<pieceMoves.size(); j++) {
+                        Board child = board.copy();
+                        int clearedRows = pieceMoves.get(j).makeMove(child);
+                        EvaluationState childState = new EvaluationState();
+                        double equity = evaluator.evaluate(child, allValidPieceMoves, state, pieceMoves.get(j), clearedRows, childState);
+                        assertEquals(evaluator.evaluate(child, allValidPieceMoves), equity, 0);
+
+                        if (j == next) {
+                            nextBoard = child;
+                            nextState = childState;
+                        }
+                    }
+                    board = nextBoard;
+                    state = nextState;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void specialized_sameAsGeneric() {
+        Random random = new Random(1);
+        int[][] sizes = { { 10, 20 }, { 6, 8 }, { 12, 40 }, { 32, 63 }, { 64, 128 } };
+
+        for (int[] size : sizes) {
+            int width = size[0];
+            int height = size[1];
+            TengstrandBoardEvaluator141 generic = new TengstrandBoardEvaluator141(width, height, new AtariGameSettings(width));
+            SpecializedTengstrandBoardEvaluator141 specialized = new SpecializedTengstrandBoardEvaluator141(generic);
+
+            for (int i=0; i<500; i++) {
+                Board board = randomBoard(random, width, height, random.nextInt(height));
+                assertEquals(generic.evaluate(board), specialized.evaluate(board), 0);
+            }
+            assertEquals(generic.maxEquity(), specialized.maxEquity(), 0);
+            assertEquals(generic.parameters(), specialized.parameters());
+        }
+    }
+
+    @Test
+    public void specialize() {
+        GameSettings settings = new AtariGameSettings(10);
+        BoardEvaluator evaluator141 = new TengstrandBoardEvaluator141(10, 20, settings);
+        BoardEvaluator evaluator20 = new TengstrandBoardEvaluator20(10, 20, settings);
+
+        assertTrue(SpecializedTengstrandBoardEvaluator141.specialize(evaluator141) instanceof SpecializedTengstrandBoardEvaluator141);
+        // Keeps the incremental evaluation of the leaves on tall boards (see PositionEvaluator).
+        assertTrue(SpecializedTengstrandBoardEvaluator141.specialize(evaluator141) instanceof IncrementalBoardEvaluator);
+        assertSame(evaluator20, SpecializedTengstrandBoardEvaluator141.specialize(evaluator20));
+    }
+}
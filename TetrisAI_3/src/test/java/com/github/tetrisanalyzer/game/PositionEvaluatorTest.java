@@ -2,7 +2,9 @@ package test.java.com.github.tetrisanalyzer.game;
 
 import com.github.tetrisanalyzer.board.Board;
 import com.github.tetrisanalyzer.boardevaluator.BoardEvaluator;
+import com.github.tetrisanalyzer.boardevaluator.CachingBoardEvaluator;
 import com.github.tetrisanalyzer.boardevaluator.TengstrandBoardEvaluator12;
+import com.github.tetrisanalyzer.boardevaluator.TengstrandBoardEvaluator141;
 import com.github.tetrisanalyzer.move.Move;
 import com.github.tetrisanalyzer.move.MoveEquity;
 import com.github.tetrisanalyzer.piece.Piece;
@@ -17,10 +19,14 @@ import com.github.tetrisanalyzer.game.*;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.github.tetrisanalyzer.board.Board.create;
+import static com.github.tetrisanalyzer.boardevaluator.CachingBoardEvaluator.Eviction.SECOND_CHANCE;
 import static com.github.tetrisanalyzer.piece.Piece.createPieceS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static test.java.com.github.tetrisanalyzer.board.RandomBoards.randomBoard;
 
 public class PositionEvaluatorTest {
     Board board = create();
@@ -79,6 +85,81 @@ public class PositionEvaluatorTest {
         assertEquals(expectedMoves, moves);
     }
 
+    @Test
+    public void transpositionTableDoesNotChangeTheEquity() {
+        GameSettings settings = new AtariGameSettings();
+        BoardEvaluator boardEvaluator = new TengstrandBoardEvaluator12(10, 20, settings);
+        AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(board, new StandardGameSettings(board));
+        NextPieces nextPieces = new NextPieces(new PredictablePieceGenerator("O"), settings, 2, 1, Arrays.asList(piece));
+        Piece[] pieces = Piece.pieces(settings);
+
+        TranspositionTable transpositionTable = new TranspositionTable(100000);
+        PositionEvaluator positionEvaluator = new PositionEvaluator(allValidPieceMoves, pieces, boardEvaluator, transpositionTable);
+
+        List<MoveEquity> expected = PositionEvaluator.evaluate(allValidPieceMoves, pieces, boardEvaluator, board, nextPieces);
+
+        assertEquals(expected, positionEvaluator.evaluate(board, nextPieces));
+        assertTrue(transpositionTable.hits() > 0);
+    }
+
+    @Test
+    public void parallelSearchGivesTheSameResultAsSequentialSearch() {
+        GameSettings settings = new AtariGameSettings();
+        BoardEvaluator boardEvaluator = new TengstrandBoardEvaluator12(10, 20, settings);
+        AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(board, new StandardGameSettings(board));
+        NextPieces nextPieces = new NextPieces(new PredictablePieceGenerator("O"), settings, 2, 1, Arrays.asList(piece));
+        Piece[] pieces = Piece.pieces(settings);
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        PositionEvaluator positionEvaluator = new PositionEvaluator(allValidPieceMoves, pieces, boardEvaluator,
+                new TranspositionTable(100000), forkJoinPool, 1);
+
+        List<MoveEquity> expected = PositionEvaluator.evaluate(allValidPieceMoves, pieces, boardEvaluator, board, nextPieces);
+        List<MoveEquity> moves = positionEvaluator.evaluate(board, nextPieces);
+        forkJoinPool.shutdown();
+
+        assertEquals(expected, moves);
+        assertEquals(PositionEvaluator.bestMove(expected).pieceMove, PositionEvaluator.bestMove(moves).pieceMove);
+    }
+
+    @Test
+    public void incrementalEvaluationGivesTheSameResultAsFullEvaluation() {
+        Random random = new Random(1);
+        Board tallBoard = randomBoard(random, 10, 64, 56);
+        GameSettings settings = new AtariGameSettings(tallBoard);
+        TengstrandBoardEvaluator141 incrementalEvaluator = new TengstrandBoardEvaluator141(10, 64, settings);
+        BoardEvaluator fullEvaluator = new BoardEvaluator() {
+            public double maxEquity() {
+                return incrementalEvaluator.maxEquity();
+            }
+            public double evaluate(Board board, AllValidPieceMoves allValidPieceMoves) {
+                return incrementalEvaluator.evaluate(board, allValidPieceMoves);
+            }
+            public Map<String, String> parameters() {
+                return incrementalEvaluator.parameters();
+            }
+        };
+        AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(tallBoard, settings);
+        NextPieces nextPieces = new NextPieces(new PredictablePieceGenerator("O"), settings, 2, 1, Arrays.asList(piece));
+        Piece[] pieces = Piece.pieces(settings);
+
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        PositionEvaluator parallelEvaluator = new PositionEvaluator(allValidPieceMoves, pieces, incrementalEvaluator,
+                null, forkJoinPool, 1);
+
+        List<MoveEquity> expected = PositionEvaluator.evaluate(allValidPieceMoves, pieces, fullEvaluator, tallBoard, nextPieces);
+        List<MoveEquity> sequentialMoves = PositionEvaluator.evaluate(allValidPieceMoves, pieces, incrementalEvaluator, tallBoard, nextPieces);
+        List<MoveEquity> parallelMoves = parallelEvaluator.evaluate(tallBoard, nextPieces);
+        forkJoinPool.shutdown();
+        CachingBoardEvaluator cachingEvaluator = CachingBoardEvaluator.create(incrementalEvaluator, 1 << 16, SECOND_CHANCE, false);
+        List<MoveEquity> cachedMoves = PositionEvaluator.evaluate(allValidPieceMoves, pieces, cachingEvaluator, tallBoard, nextPieces);
+
+        assertEquals(expected, sequentialMoves);
+        assertEquals(expected, parallelMoves);
+        assertEquals(expected, cachedMoves);
+        assertTrue(cachingEvaluator.hits() > 0);
+    }
+
     private MoveEquity roundThreeDecimals(MoveEquity moveEquity) {
         double equity = Math.round((moveEquity.equity - 11.433) * 1000) / 1000.0;
         return new MoveEquity(moveEquity.pieceMove, equity);
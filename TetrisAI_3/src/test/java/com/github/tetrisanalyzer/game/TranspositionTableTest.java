@@ -0,0 +1,113 @@
+package test.java.com.github.tetrisanalyzer.game;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.game.NextPieces;
+import com.github.tetrisanalyzer.game.TranspositionTable;
+import com.github.tetrisanalyzer.piece.Piece;
+import com.github.tetrisanalyzer.piecegenerator.PredictablePieceGenerator;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static com.github.tetrisanalyzer.piece.Piece.createPieceO;
+import static com.github.tetrisanalyzer.piece.Piece.createPieceS;
+import static com.github.tetrisanalyzer.piece.Piece.createPieceT;
+import static com.github.tetrisanalyzer.piece.Piece.createPieceZ;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TranspositionTableTest {
+    GameSettings settings = new AtariGameSettings();
+
+    @Test
+    public void getStoredEquity() {
+        TranspositionTable table = new TranspositionTable(16);
+        table.put(123, 4.5);
+
+        assertEquals(4.5, table.get(123), 0);
+        assertTrue(Double.isNaN(table.get(124)));
+        assertEquals(1, table.hits());
+        assertEquals(1, table.misses());
+        assertEquals("50.0%", table.hitRateFormatted());
+    }
+
+    @Test
+    public void replaceUnreferencedEntryWhenBucketIsFull() {
+        TranspositionTable table = new TranspositionTable(4);
+        table.put(1, 1.0);
+        table.put(2, 2.0);
+        table.put(3, 3.0);
+        table.put(4, 4.0);
+
+        table.get(1);
+        table.get(3);
+        table.put(5, 5.0);
+
+        assertEquals(1.0, table.get(1), 0);
+        assertTrue(Double.isNaN(table.get(2)));
+        assertEquals(3.0, table.get(3), 0);
+        assertEquals(4.0, table.get(4), 0);
+        assertEquals(5.0, table.get(5), 0);
+    }
+
+    @Test
+    public void keyDependsOnLevelAndKnownPieces() {
+        Board board = Board.create(10, 20);
+        Piece pieceO = createPieceO(settings);
+        Piece pieceT = createPieceT(settings);
+
+        long key = TranspositionTable.key(board, nextPieces(1, 1, pieceO));
+
+        assertEquals(key, TranspositionTable.key(board.copy(), nextPieces(1, 1, pieceO)));
+        assertNotEquals(key, TranspositionTable.key(board, nextPieces(1, 1, pieceT)));
+        assertNotEquals(key, TranspositionTable.key(board, nextPieces(2, 1, pieceO)));
+        assertNotEquals(key, TranspositionTable.key(board, nextPieces(1, 0, pieceO)));
+    }
+
+    @Test
+    public void symmetricKeyIsSameForMirroredPosition() {
+        Board board = Board.create(
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|---x------|",
+                "|xx-xxx-xxx|",
+                "==========");
+        Board mirrored = Board.create(
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|------x---|",
+                "|xxx-xxx-xx|",
+                "==========");
+        Piece pieceS = createPieceS(settings);
+        Piece pieceZ = createPieceZ(settings);
+        long key = TranspositionTable.symmetricKey(board, nextPieces(1, 1, pieceS));
+
+        assertEquals(key, TranspositionTable.symmetricKey(mirrored, nextPieces(1, 1, pieceZ)));
+        assertNotEquals(key, TranspositionTable.symmetricKey(mirrored, nextPieces(1, 1, pieceS)));
+        assertNotEquals(TranspositionTable.key(board, nextPieces(1, 1, pieceS)), TranspositionTable.key(mirrored, nextPieces(1, 1, pieceZ)));
+    }
+
+    @Test
+    public void positionKey() {
+        Board board = Board.create(
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|---x------|",
+                "|xx-xxx-xxx|",
+                "==========");
+        NextPieces nextPieces = nextPieces(1, 1, createPieceO(settings));
+
+        assertEquals(TranspositionTable.key(board, nextPieces), new TranspositionTable(16).positionKey(board, nextPieces));
+        assertEquals(TranspositionTable.symmetricKey(board, nextPieces), new TranspositionTable(16, true).positionKey(board, nextPieces));
+    }
+
+    private NextPieces nextPieces(int level, int knownPieces, Piece piece) {
+        return new NextPieces(new PredictablePieceGenerator("O"), settings, level, knownPieces, Arrays.asList(piece));
+    }
+}
@@ -5,25 +5,32 @@ import com.github.tetrisanalyzer.move.Move;
 import com.github.tetrisanalyzer.move.ValidMoves;
 import com.github.tetrisanalyzer.piece.Piece;
 import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.MoveGraph;
 import com.github.tetrisanalyzer.piecemove.PieceMove;
 import com.github.tetrisanalyzer.settings.AtariGameSettings;
 import com.github.tetrisanalyzer.settings.GameSettings;
+import com.github.tetrisanalyzer.settings.StandardGameSettings;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static com.github.tetrisanalyzer.piece.Piece.createPieceS;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
+import static test.java.com.github.tetrisanalyzer.Allocations.allocatedBytes;
+import static test.java.com.github.tetrisanalyzer.board.RandomBoards.randomBoard;
 
 public class ValidMovesTest {
+    private int totalMoves;
 
     @Test
     public void pieceMoves() {
         Board board = Board.create(5, 4);
         GameSettings settings = new AtariGameSettings(board);
-        ValidMoves validMoves = new ValidMoves(board);
+        ValidMoves validMoves = new ValidMoves();
         PieceMove startPiece = getStartPieceS(board, settings);
         List<Move> moves = new ArrayList<>();
 
@@ -41,6 +48,99 @@ public class ValidMovesTest {
         assertTrue(moves.contains(new Move(1,3, 1)));
     }
 
+    @Test
+    public void pieceMoves_reused() {
+        Board emptyBoard = Board.create(5, 4);
+        Board board = Board.create(
+                "|-----|",
+                "|-----|",
+                "|-----|",
+                "|xx---|",
+                "=======");
+        GameSettings settings = new AtariGameSettings(emptyBoard);
+        PieceMove startPiece = getStartPieceS(emptyBoard, settings);
+        ValidMoves validMoves = new ValidMoves();
+
+        assertEquals(7, validMoves.pieceMoves(startPiece, emptyBoard).size());
+        assertEquals(new ValidMoves().pieceMoves(startPiece, board), validMoves.pieceMoves(startPiece, board));
+        assertEquals(7, validMoves.pieceMoves(startPiece, emptyBoard).size());
+    }
+
+    @Test
+    public void pieceMoves_allocatesNothingWhenReused() {
+        Board board = Board.create(
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----x-----|",
+                "|---xx-----|",
+                "|x--xxx---x|",
+                "|xx-xxxx-xx|",
+                "============");
+        GameSettings settings = new AtariGameSettings(board);
+        AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(board, settings);
+        Piece[] pieces = Piece.pieces(settings);
+        PieceMove[] startMoves = new PieceMove[pieces.length];
+        for (int i=0; i<pieces.length; i++) {
+            startMoves[i] = allValidPieceMoves.startMoveForPiece(pieces[i]);
+        }
+        ValidMoves validMoves = new ValidMoves();
+
+        // The first calls may allocate, e.g. when the result list grows or classes are loaded.
+        int moves = countMoves(validMoves, startMoves, board);
+        long allocatedBytes = allocatedBytes(1000, () -> totalMoves += countMoves(validMoves, startMoves, board));
+
+        // The JVM itself can allocate a few hundred bytes now and then (e.g. when methods are compiled),
+        // so allow less than one byte per call, where a new ValidMoves per call would allocate kilobytes.
+        assertEquals(1000 * moves, totalMoves);
+        assertTrue("Allocated bytes: " + allocatedBytes, allocatedBytes < 1000 * startMoves.length);
+    }
+
+    @Test
+    public void pieceMovesByHardDrop_sameAsTraversal() {
+        Board emptyBoard = Board.create(10, 20);
+        GameSettings[] settingsList = { new AtariGameSettings(emptyBoard), new StandardGameSettings(emptyBoard) };
+        ValidMoves hardDrop = new ValidMoves();
+        ValidMoves traversal = new ValidMoves();
+        Random random = new Random(1);
+
+        for (GameSettings settings : settingsList) {
+            AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(emptyBoard, settings);
+
+            for (int i=0; i<200; i++) {
+                Board board = randomBoard(random, 10, 20, 2 + random.nextInt(18));
+                for (Piece piece : Piece.pieces(settings)) {
+                    MoveGraph moveGraph = allValidPieceMoves.startMoveForPiece(piece).moveGraph();
+
+                    assertTrue(moveGraph.hasHardDrops());
+                    assertEquals(traversal.pieceMovesByTraversal(moveGraph, board), hardDrop.pieceMovesByHardDrop(moveGraph, board));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void hasHardDrops_slidingOn() {
+        Board board = Board.create(10, 20);
+        GameSettings settings = new AtariGameSettings(board, true);
+        AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(board, settings);
+
+        for (Piece piece : Piece.pieces(settings)) {
+            assertFalse(allValidPieceMoves.startMoveForPiece(piece).moveGraph().hasHardDrops());
+        }
+    }
+
+    private int countMoves(ValidMoves validMoves, PieceMove[] startMoves, Board board) {
+        int moves = 0;
+        for (PieceMove startMove : startMoves) {
+            moves += validMoves.pieceMoves(startMove, board).size();
+        }
+        return moves;
+    }
+
     private PieceMove getStartPieceS(Board board, GameSettings settings) {
         Piece piece = createPieceS(settings);
         AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(board, settings);
@@ -0,0 +1,72 @@
+package test.java.com.github.tetrisanalyzer.piecemove;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.move.ValidMoves;
+import com.github.tetrisanalyzer.piece.Piece;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMovesCache;
+import com.github.tetrisanalyzer.piecemove.MoveGraph;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+public class AllValidPieceMovesCacheTest {
+
+    @After
+    public void tearDown() {
+        AllValidPieceMovesCache.setDirectory(null);
+        AllValidPieceMovesCache.clear();
+    }
+
+    @Test
+    public void sameSizeAndRules() {
+        AllValidPieceMoves allValidPieceMoves = AllValidPieceMovesCache.get(10, 20, new AtariGameSettings(10, true));
+
+        assertSame(allValidPieceMoves, AllValidPieceMovesCache.get(10, 20, new AtariGameSettings(10, true)));
+        assertNotSame(allValidPieceMoves, AllValidPieceMovesCache.get(10, 20, new AtariGameSettings(10, false)));
+        assertNotSame(allValidPieceMoves, AllValidPieceMovesCache.get(10, 21, new AtariGameSettings(10, true)));
+    }
+
+    @Test
+    public void readFromDisk() throws Exception {
+        File directory = Files.createTempDirectory("move-graphs").toFile();
+        Board board = Board.create(32, 32);
+        GameSettings settings = new AtariGameSettings(board, true);
+
+        AllValidPieceMovesCache.setDirectory(directory.getPath());
+        AllValidPieceMoves calculated = AllValidPieceMovesCache.get(board.width, board.height, settings);
+        File[] files = directory.listFiles();
+        assertEquals(1, files.length);
+
+        AllValidPieceMovesCache.clear();
+        AllValidPieceMoves read = AllValidPieceMovesCache.get(board.width, board.height, settings);
+        assertNotSame(calculated, read);
+
+        for (int y=20; y<32; y++) {
+            board.setBits(y, 0x5555_5555L << (y & 1));
+        }
+        for (Piece piece : Piece.pieces(settings)) {
+            MoveGraph expected = calculated.startMoveForPiece(piece).moveGraph();
+            MoveGraph actual = read.startMoveForPiece(piece).moveGraph();
+
+            assertEquals(expected.size(), actual.size());
+            assertEquals(new ValidMoves().pieceMoves(expected, board), new ValidMoves().pieceMoves(actual, board));
+        }
+        assertTrue(files[0].delete());
+        assertTrue(directory.delete());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingDirectory() {
+        AllValidPieceMovesCache.setDirectory("missing-move-graph-directory");
+    }
+}
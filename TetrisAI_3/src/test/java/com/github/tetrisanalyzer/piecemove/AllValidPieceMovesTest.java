@@ -1,15 +1,31 @@
 package test.java.com.github.tetrisanalyzer.piecemove;
 
 import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.PackedBoard;
+import com.github.tetrisanalyzer.piece.Piece;
 import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
 import com.github.tetrisanalyzer.settings.AtariGameSettings;
 import com.github.tetrisanalyzer.settings.GameSettings;
+import com.github.tetrisanalyzer.settings.StandardGameSettings;
 import org.junit.Test;
 
+import java.util.Random;
+
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static test.java.com.github.tetrisanalyzer.board.RandomBoards.randomBoard;
 
 public class AllValidPieceMovesTest {
     
+    @Test
+    public void isMirrorSymmetric_startPositionsAreNot() {
+        Board board = Board.create(10, 20);
+
+        // The pieces start at x=4 on a 10 wide board, which is not in the middle for pieces that are 3 or 4 wide.
+        assertFalse(new AllValidPieceMoves(board, new AtariGameSettings(board)).isMirrorSymmetric(board.width));
+        assertFalse(new AllValidPieceMoves(board, new StandardGameSettings(board)).isMirrorSymmetric(board.width));
+    }
+
     @Test
     public void adjustEquity_allSevenPiecesAreFree() {
         Board board = Board.create(10,20);
@@ -32,4 +48,31 @@ public class AllValidPieceMovesTest {
 
         assertEquals(43.562285714285714, allValidPieceMoves.adjustEquityIfOccupiedStartPiece(1.234, 100.0, board));
     }
+
+    @Test
+    public void adjustEquity_sameAsStartMovesIsFree() {
+        Random random = new Random(1);
+        Board emptyBoard = Board.create(10, 20);
+        GameSettings[] settingsList = { new AtariGameSettings(emptyBoard), new StandardGameSettings(emptyBoard) };
+
+        for (GameSettings settings : settingsList) {
+            AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(emptyBoard, settings);
+            Piece[] pieces = Piece.pieces(settings);
+
+            for (int i=0; i<2000; i++) {
+                // Sparse rows from near the top, so that anything from none to all of the start moves are occupied.
+                Board board = randomBoard(random, 10, 20, random.nextInt(6), 0.125);
+                int occupied = 0;
+                for (Piece piece : pieces) {
+                    if (!allValidPieceMoves.startMoveForPiece(piece).isFree(board)) {
+                        occupied++;
+                    }
+                }
+                double expected = occupied == 0 ? 1.234 : occupied == 7 ? 100.0 : ((7 - occupied) * 1.234 + occupied * 100.0) / 7;
+
+                assertEquals(expected, allValidPieceMoves.adjustEquityIfOccupiedStartPiece(1.234, 100.0, board));
+                assertEquals(expected, allValidPieceMoves.adjustEquityIfOccupiedStartPiece(1.234, 100.0, PackedBoard.create(board)));
+            }
+        }
+    }
 }
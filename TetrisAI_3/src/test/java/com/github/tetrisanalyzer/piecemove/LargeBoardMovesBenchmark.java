@@ -0,0 +1,46 @@
+package test.java.com.github.tetrisanalyzer.piecemove;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.move.ValidMoves;
+import com.github.tetrisanalyzer.piece.Piece;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+
+import java.util.Random;
+
+import static test.java.com.github.tetrisanalyzer.board.RandomBoards.randomBoard;
+
+/**
+ * Measures the time to create the move graphs and to calculate the valid moves
+ * on the largest supported board (64x128) with sliding on, where the lower half is filled with random rows.
+ *
+ * Not a unit test, run it from the IDE (main method).
+ */
+public class LargeBoardMovesBenchmark {
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 128;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        Board board = randomBoard(new Random(1), WIDTH, HEIGHT, HEIGHT / 2);
+
+        for (int round=1; round<=ROUNDS; round++) {
+            long start = System.nanoTime();
+            GameSettings settings = new AtariGameSettings(WIDTH, true);
+            AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(Board.create(WIDTH, HEIGHT), settings);
+            long graphNanos = System.nanoTime() - start;
+
+            ValidMoves validMoves = new ValidMoves();
+            int moves = 0;
+            start = System.nanoTime();
+            for (Piece piece : Piece.pieces(settings)) {
+                moves += validMoves.pieceMoves(allValidPieceMoves.startMoveForPiece(piece), board).size();
+            }
+            long movesNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d, %dx%d: move graph %.1f ms, valid moves %.1f ms (%d), max stack size %d%n", round,
+                    WIDTH, HEIGHT, graphNanos / 1e6, movesNanos / 1e6, moves, validMoves.maxStackSize());
+        }
+    }
+}
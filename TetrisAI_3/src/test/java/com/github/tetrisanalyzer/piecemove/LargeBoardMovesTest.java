@@ -0,0 +1,80 @@
+package test.java.com.github.tetrisanalyzer.piecemove;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.move.ValidMoves;
+import com.github.tetrisanalyzer.piece.Piece;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.PieceMove;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.github.tetrisanalyzer.piece.Piece.createPieceI;
+import static com.github.tetrisanalyzer.piece.Piece.createPieceO;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static test.java.com.github.tetrisanalyzer.board.RandomBoards.randomBoard;
+
+/**
+ * Calculates the valid moves on the largest supported board (64x128) in a thread with a small stack,
+ * which fails with a StackOverflowError if the move graph is traversed recursively.
+ */
+public class LargeBoardMovesTest {
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 128;
+    private static final long STACK_SIZE = 256 * 1024;
+
+    @Test
+    public void validMovesOnLargeBoard() throws Throwable {
+        runWithSmallStack(() -> {
+            Board emptyBoard = Board.create(WIDTH, HEIGHT);
+            GameSettings settings = new AtariGameSettings(emptyBoard, true);
+            AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(emptyBoard, settings);
+
+            ValidMoves validMoves = new ValidMoves();
+            assertEquals(WIDTH - 1, validMoves.pieceMoves(allValidPieceMoves.startMoveForPiece(createPieceO(settings)), emptyBoard).size());
+            assertEquals(WIDTH - 3 + WIDTH, validMoves.pieceMoves(allValidPieceMoves.startMoveForPiece(createPieceI(settings)), emptyBoard).size());
+
+            Board board = randomBoard(new Random(1), WIDTH, HEIGHT, HEIGHT / 2);
+            int moves = 0;
+            int maxGraphSize = 0;
+            for (Piece piece : Piece.pieces(settings)) {
+                PieceMove startMove = allValidPieceMoves.startMoveForPiece(piece);
+                List<PieceMove> pieceMoves = validMoves.pieceMoves(startMove, board);
+                for (PieceMove pieceMove : pieceMoves) {
+                    assertTrue(pieceMove.isFree(board));
+                    assertFalse(pieceMove.canMoveDown(board));
+                }
+                moves += pieceMoves.size();
+                maxGraphSize = Math.max(maxGraphSize, startMove.moveGraph().size());
+            }
+            assertTrue(moves > 0);
+
+            // Each move is pushed at most once, and with sliding the traversal goes far deeper
+            // than one level per row, which is what overflowed the stack when it was recursive.
+            int maxStackSize = validMoves.maxStackSize();
+            assertTrue("Max stack size: " + maxStackSize, maxStackSize > HEIGHT && maxStackSize <= maxGraphSize);
+        });
+    }
+
+    private void runWithSmallStack(Runnable runnable) throws Throwable {
+        Throwable[] error = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                runnable.run();
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+        }, "small stack", STACK_SIZE);
+        thread.start();
+        thread.join();
+
+        if (error[0] != null) {
+            throw error[0];
+        }
+    }
+}
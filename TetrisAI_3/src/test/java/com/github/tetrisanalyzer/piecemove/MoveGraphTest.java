@@ -0,0 +1,78 @@
+package test.java.com.github.tetrisanalyzer.piecemove;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.PackedBoard;
+import com.github.tetrisanalyzer.piece.Piece;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.MoveGraph;
+import com.github.tetrisanalyzer.piecemove.PieceMove;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+public class MoveGraphTest {
+
+    @Test
+    public void sameMovesAsPieceMoves() {
+        Board board = Board.create(
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----x-----|",
+                "|---xx-----|",
+                "|x--xxx---x|",
+                "|xx-xxxx-xx|",
+                "============");
+        Board packedBoard = PackedBoard.create(board);
+        GameSettings settings = new AtariGameSettings(board, true);
+        AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(board, settings);
+
+        for (Piece piece : Piece.pieces(settings)) {
+            PieceMove startMove = allValidPieceMoves.startMoveForPiece(piece);
+            MoveGraph moveGraph = startMove.moveGraph();
+
+            assertSame(startMove, moveGraph.pieceMove(0));
+
+            for (int node=0; node<moveGraph.size(); node++) {
+                PieceMove pieceMove = moveGraph.pieceMove(node);
+                int down = moveGraph.down(node);
+
+                assertEquals(pieceMove.isFree(board), moveGraph.isFree(node, board));
+                assertEquals(pieceMove.isFree(packedBoard), moveGraph.isFree(node, packedBoard));
+                assertSame(pieceMove.down, down < 0 ? null : moveGraph.pieceMove(down));
+                assertEquals(new ArrayList<>(pieceMove.asideAndRotate), adjacentMoves(moveGraph, node));
+            }
+        }
+    }
+
+    @Test
+    public void isMirrorOf() {
+        Board board = Board.create(10, 20);
+        GameSettings settings = new AtariGameSettings(board);
+        AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(board, settings);
+        MoveGraph o = allValidPieceMoves.startMoveForPiece(Piece.createPieceO(settings)).moveGraph();
+        MoveGraph s = allValidPieceMoves.startMoveForPiece(Piece.createPieceS(settings)).moveGraph();
+        MoveGraph z = allValidPieceMoves.startMoveForPiece(Piece.createPieceZ(settings)).moveGraph();
+
+        assertTrue(o.isMirrorOf(o, board.width));
+        assertFalse(s.isMirrorOf(z, board.width));
+        assertFalse(s.isMirrorOf(s, board.width));
+    }
+
+    private List<PieceMove> adjacentMoves(MoveGraph moveGraph, int node) {
+        List<PieceMove> moves = new ArrayList<>();
+        for (int i=moveGraph.adjacentStart(node); i<moveGraph.adjacentEnd(node); i++) {
+            moves.add(moveGraph.pieceMove(moveGraph.adjacentNode(i)));
+        }
+        return moves;
+    }
+}
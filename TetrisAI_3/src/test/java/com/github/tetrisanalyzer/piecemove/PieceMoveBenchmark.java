@@ -0,0 +1,102 @@
+package test.java.com.github.tetrisanalyzer.piecemove;
+
+import com.github.tetrisanalyzer.board.Board;
+import com.github.tetrisanalyzer.board.PackedBoard;
+import com.github.tetrisanalyzer.move.ValidMoves;
+import com.github.tetrisanalyzer.piece.Piece;
+import com.github.tetrisanalyzer.piecemove.AllValidPieceMoves;
+import com.github.tetrisanalyzer.piecemove.PieceMove;
+import com.github.tetrisanalyzer.settings.AtariGameSettings;
+import com.github.tetrisanalyzer.settings.GameSettings;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the time of the collision checks (PieceMove.isFree and PieceMove.canMoveDown)
+ * and of the move generation (ValidMoves.pieceMoves) on a partly filled 10x20 board.
+ *
+ * Not a unit test, run it from the IDE (main method).
+ * Pass the argument "packed" to run it on a PackedBoard.
+ */
+public class PieceMoveBenchmark {
+    private static final int ROUNDS = 20;
+    private static final int ITERATIONS = 20000;
+
+    public static void main(String[] args) {
+        Board rowBoard = Board.create(
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----x-----|",
+                "|---xx-----|",
+                "|x--xxx---x|",
+                "|xx-xxxx-xx|",
+                "|xxxxx-xxxx|",
+                "|xx-xxxxxxx|",
+                "|xxxxxxxx-x|",
+                "|-xxxxxxxxx|",
+                "============");
+        Board board = args.length > 0 && args[0].equals("packed") ? PackedBoard.create(rowBoard) : rowBoard;
+        GameSettings settings = new AtariGameSettings(board);
+        AllValidPieceMoves allValidPieceMoves = new AllValidPieceMoves(board, settings);
+        Piece[] pieces = Piece.pieces(settings);
+
+        List<PieceMove> startMoves = new ArrayList<>();
+        for (Piece piece : pieces) {
+            startMoves.add(allValidPieceMoves.startMoveForPiece(piece));
+        }
+        PieceMove[] pieceMoves = allPieceMoves(startMoves);
+
+        for (int round=1; round<=ROUNDS; round++) {
+            long checks = 0;
+            long start = System.nanoTime();
+            for (int i=0; i<ITERATIONS; i++) {
+                for (PieceMove pieceMove : pieceMoves) {
+                    if (pieceMove.isFree(board)) checks++;
+                    if (pieceMove.canMoveDown(board)) checks++;
+                }
+            }
+            long collisionNanos = System.nanoTime() - start;
+
+            long moves = 0;
+            ValidMoves validMoves = new ValidMoves();
+            start = System.nanoTime();
+            for (int i=0; i<ITERATIONS / 10; i++) {
+                for (PieceMove startMove : startMoves) {
+                    moves += validMoves.pieceMoves(startMove, board).size();
+                }
+            }
+            long generationNanos = System.nanoTime() - start;
+
+            System.out.printf("round %2d: isFree+canMoveDown %.2f ns/move, pieceMoves %.0f ns/piece (%d, %d)%n", round,
+                    (double) collisionNanos / ITERATIONS / pieceMoves.length,
+                    (double) generationNanos / (ITERATIONS / 10) / startMoves.size(), checks, moves);
+        }
+    }
+
+    private static PieceMove[] allPieceMoves(List<PieceMove> startMoves) {
+        Map<PieceMove, Boolean> visited = new IdentityHashMap<>();
+        List<PieceMove> stack = new ArrayList<>(startMoves);
+
+        while (!stack.isEmpty()) {
+            PieceMove pieceMove = stack.remove(stack.size() - 1);
+            if (pieceMove != null && visited.put(pieceMove, true) == null) {
+                stack.add(pieceMove.down);
+                stack.addAll(pieceMove.asideAndRotate);
+            }
+        }
+        return visited.keySet().toArray(new PieceMove[visited.size()]);
+    }
+}
@@ -55,6 +55,35 @@ public class PieceMoveTest {
                 "������������"), board);
     }
 
+    @Test
+    public void makeAndUnmakeMove() {
+        Board board = Board.create(
+                "|----------|",
+                "|----x-----|",
+                "|xxxxxxxxx-|",
+                "|-x--x-----|",
+                "|xxxxxxxxx-|",
+                "|xxxxxxxxx-|",
+                "============");
+        Board expected = board.copy();
+        PieceMove pieceMove = new PieceMove(createPieceI(settings), new Move(1, 9, 2));
+
+        assertEquals(3, pieceMove.makeMove(board));
+        assertEquals(Board.create(
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----------|",
+                "|----x-----|",
+                "|-x--x----x|",
+                "============"), board);
+
+        pieceMove.unmakeMove(board);
+
+        assertEquals(expected, board);
+        assertEquals(expected.hash(), board.hash());
+    }
+
     @Test
     public void clearPiece() {
         Board board = Board.create(
@@ -159,6 +159,12 @@ public class RaceSettingsTest {
                 "    window-3: [0.286, 0.084, 0.287, 0.118]\n", race.shortcuts.export());
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void mirrorSymmetry_refusedForAsymmetricEvaluator() throws YamlException {
+        SystemSettings systemSettings = SystemSettings.fromString(SYSTEM_SETTINGS);
+        RaceSettings.fromString(RACE_SETTINGS.replace("level: 4\n", "level: 4\nmirror symmetry: true\n"), systemSettings, false);
+    }
+
     @Test
     public void exportSettings() throws YamlException {
         SystemSettings systemSettings = SystemSettings.fromString(SYSTEM_SETTINGS);